@@ -0,0 +1,53 @@
+package bricker.benchmarks;
+
+/**
+ * Benchmark is a single measured case of the Bricker benchmark suite.
+ * An iteration calls setUp() untimed, then times operationsPerIteration calls of operation().
+ */
+public abstract class Benchmark {
+
+    private final String name;
+    private final int operationsPerIteration;
+
+    /**
+     * Constructs a Benchmark.
+     *
+     * @param name                   the name of the case, used in reports and baselines
+     * @param operationsPerIteration the number of operations timed in every iteration
+     */
+    protected Benchmark(String name, int operationsPerIteration) {
+        this.name = name;
+        this.operationsPerIteration = operationsPerIteration;
+    }
+
+    /**
+     * Prepares a new iteration. Not timed.
+     */
+    protected void setUp() {
+    }
+
+    /**
+     * Runs a single measured operation.
+     *
+     * @return any value derived from the work done, consumed so the JIT cannot drop the work
+     */
+    protected abstract int operation();
+
+    /**
+     * Gets the name of the case.
+     *
+     * @return the name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the number of operations timed in every iteration.
+     *
+     * @return the number of operations per iteration
+     */
+    public int getOperationsPerIteration() {
+        return operationsPerIteration;
+    }
+}
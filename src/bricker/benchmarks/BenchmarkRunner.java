@@ -0,0 +1,121 @@
+package bricker.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * BenchmarkRunner runs benchmarks with warmup and measurement iterations, reports the
+ * time per operation, and saves or compares against a baseline file to catch regressions.
+ */
+public class BenchmarkRunner {
+
+    private static final String SEPARATOR = "\t";
+
+    private final int warmupIterations;
+    private final int measurementIterations;
+    private final Map<String, Double> results = new LinkedHashMap<>();
+    private int sink = 0;
+
+    /**
+     * Constructs a BenchmarkRunner.
+     *
+     * @param warmupIterations      the number of untimed iterations run first, to let the JIT compile
+     * @param measurementIterations the number of timed iterations
+     */
+    public BenchmarkRunner(int warmupIterations, int measurementIterations) {
+        this.warmupIterations = warmupIterations;
+        this.measurementIterations = measurementIterations;
+    }
+
+    /**
+     * Runs a benchmark and records its median time per operation.
+     *
+     * @param benchmark the benchmark to run
+     * @return the median time per operation, in nanoseconds
+     */
+    public double run(Benchmark benchmark) {
+        for (int i = 0; i < warmupIterations; i++) {
+            runIteration(benchmark);
+        }
+        double[] nanosPerOperation = new double[measurementIterations];
+        for (int i = 0; i < measurementIterations; i++) {
+            nanosPerOperation[i] = (double) runIteration(benchmark) / benchmark.getOperationsPerIteration();
+        }
+        Arrays.sort(nanosPerOperation);
+        double median = nanosPerOperation[measurementIterations / 2];
+        results.put(benchmark.getName(), median);
+        System.out.printf("%-40s %14.1f ns/op  (min %.1f, max %.1f)%n", benchmark.getName(), median,
+                nanosPerOperation[0], nanosPerOperation[measurementIterations - 1]);
+        return median;
+    }
+
+    /**
+     * Runs a single iteration of a benchmark.
+     *
+     * @param benchmark the benchmark
+     * @return the time of the timed operations, in nanoseconds
+     */
+    private long runIteration(Benchmark benchmark) {
+        benchmark.setUp();
+        long start = System.nanoTime();
+        for (int i = 0; i < benchmark.getOperationsPerIteration(); i++) {
+            sink += benchmark.operation();
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Saves the recorded results as a baseline file, one "name, ns/op" line per case.
+     *
+     * @param baselinePath the path of the baseline file
+     * @throws IOException if the file cannot be written
+     */
+    public void saveBaseline(Path baselinePath) throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (Map.Entry<String, Double> result : results.entrySet()) {
+            lines.add(result.getKey() + SEPARATOR + result.getValue());
+        }
+        Files.write(baselinePath, lines);
+    }
+
+    /**
+     * Compares the recorded results with a baseline file and prints every case that got slower.
+     *
+     * @param baselinePath the path of the baseline file
+     * @param tolerance    the allowed slowdown ratio, e.g. 0.1 for 10%
+     * @return the number of cases that regressed beyond the tolerance
+     * @throws IOException if the file cannot be read
+     */
+    public int compareToBaseline(Path baselinePath, double tolerance) throws IOException {
+        int regressionsNum = 0;
+        for (String line : Files.readAllLines(baselinePath)) {
+            String[] fields = line.split(SEPARATOR);
+            Double current = results.get(fields[0]);
+            if (fields.length != 2 || current == null) {
+                continue;
+            }
+            double baseline = Double.parseDouble(fields[1]);
+            if (current > baseline * (1 + tolerance)) {
+                regressionsNum++;
+                System.out.printf("REGRESSION %-29s %14.1f ns/op, baseline %.1f (+%.0f%%)%n", fields[0],
+                        current, baseline, (current / baseline - 1) * 100);
+            }
+        }
+        return regressionsNum;
+    }
+
+    /**
+     * Gets the accumulated benchmark values, so the measured work is never dead code.
+     *
+     * @return the sum of all operation results
+     */
+    public int getSink() {
+        return sink;
+    }
+}
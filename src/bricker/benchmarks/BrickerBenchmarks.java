@@ -0,0 +1,206 @@
+package bricker.benchmarks;
+
+import bricker.brick_strategies.CollisionStrategy;
+import bricker.brick_strategies.CollisionStrategyFactory;
+import bricker.brick_strategies.DoubleCollisionStrategies;
+import bricker.main.BrickerGameManager;
+import bricker.main.EntityBudget;
+import bricker.main.FrameProfiler;
+import bricker.main.HeadlessSimulation;
+import danogl.GameObject;
+import danogl.util.Counter;
+import danogl.util.Vector2;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * BrickerBenchmarks is the headless benchmark suite of the Bricker game: board construction,
+ * full frame updates with pucks alive, strategy creation and double-strategy dispatch.
+ */
+public class BrickerBenchmarks {
+
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int MEASUREMENT_ITERATIONS = 10;
+    private static final double REGRESSION_TOLERANCE = 0.1;
+    private static final int[] BOARD_SIZES = {8, 50, 200, 1000};
+    private static final int MEMORY_BOARD_SIZE = 1000;
+    private static final int[] PUCKS_NUMS = {0, 100, 1000};
+    private static final int FRAMES_PER_ITERATION = 100;
+    private static final int STRATEGIES_PER_ITERATION = 10_000;
+    private static final int DISPATCHES_PER_ITERATION = 1_000;
+    private static final int STRATEGY_CONSTANTS_NUM = 10;
+
+    /**
+     * Creates a new headless game.
+     *
+     * @param rowsNum the number of rows of bricks
+     * @param colsNum the number of columns of bricks
+     * @return the headless simulation of the game
+     */
+    private static HeadlessSimulation newGame(int rowsNum, int colsNum) {
+        return new HeadlessSimulation(rowsNum, colsNum, HeadlessSimulation.DEFAULT_FIXED_DELTA);
+    }
+
+    /**
+     * Creates the benchmark of building a whole board of bricks.
+     *
+     * @param size the number of rows and of columns of bricks
+     * @return the benchmark
+     */
+    private static Benchmark boardConstruction(int size) {
+        return new Benchmark("createBricks " + size + "x" + size, 1) {
+            @Override
+            protected int operation() {
+                return newGame(size, size).getFramesNum();
+            }
+        };
+    }
+
+    /**
+     * Creates the benchmark of a full frame update with pucks alive.
+     *
+     * @param pucksNum the number of pucks spawned before the timed frames
+     * @return the benchmark
+     */
+    private static Benchmark frameUpdate(int pucksNum) {
+        return new Benchmark("update with " + pucksNum + " pucks", FRAMES_PER_ITERATION) {
+            private HeadlessSimulation simulation;
+
+            @Override
+            protected void setUp() {
+                simulation = newGame(8, 8);
+                simulation.getGameManager().setEntityBudget(EntityBudget.unlimited());
+                Vector2 spawnLocation = new Vector2(BrickerGameManager.WINDOW_WIDTH / 2,
+                        BrickerGameManager.WINDOW_HEIGHT / 2);
+                for (int i = 0; i < pucksNum; i += 2) {
+                    simulation.getGameManager().createPuckBalls(spawnLocation);
+                }
+                simulation.getGameManager().applyDeferredCommands();
+            }
+
+            @Override
+            protected int operation() {
+                return simulation.step() ? 1 : 0;
+            }
+        };
+    }
+
+    /**
+     * Creates the benchmark of rolling and choosing the collision strategy of a brick,
+     * as done for every brick of a board.
+     *
+     * @return the benchmark
+     */
+    private static Benchmark chosenStrategy() {
+        return new Benchmark("CollisionStrategyFactory.chosenStrategy", STRATEGIES_PER_ITERATION) {
+            private final Random random = new Random(0);
+            private CollisionStrategyFactory factory;
+
+            @Override
+            protected void setUp() {
+                BrickerGameManager gameManager = newGame(1, 1).getGameManager();
+                factory = new CollisionStrategyFactory(gameManager, new Counter(STRATEGIES_PER_ITERATION));
+            }
+
+            @Override
+            protected int operation() {
+                int strategyCode = CollisionStrategyFactory.rollStrategyCode(random, STRATEGY_CONSTANTS_NUM);
+                CollisionStrategy strategy = factory.chosenStrategy(strategyCode);
+                return strategy.hashCode();
+            }
+        };
+    }
+
+    /**
+     * Creates the benchmark of dispatching a collision through double strategies,
+     * including the side effects of the combined strategies.
+     *
+     * @return the benchmark
+     */
+    private static Benchmark doubleDispatch() {
+        return new Benchmark("DoubleCollisionStrategies.onCollision", DISPATCHES_PER_ITERATION) {
+            private final GameObject brick = new GameObject(Vector2.ZERO, Vector2.ONES, null);
+            private final GameObject other = new GameObject(Vector2.ZERO, Vector2.ONES, null);
+            private final Random random = new Random(0);
+            private CollisionStrategyFactory factory;
+            private int[] strategyCodes;
+            private int index = 0;
+
+            @Override
+            protected void setUp() {
+                BrickerGameManager gameManager = newGame(1, 1).getGameManager();
+                factory = new CollisionStrategyFactory(gameManager, new Counter(DISPATCHES_PER_ITERATION));
+                other.setTag(BrickerGameManager.PUCK_TAG);
+                strategyCodes = new int[DISPATCHES_PER_ITERATION];
+                for (int i = 0; i < strategyCodes.length; i++) {
+                    strategyCodes[i] = DoubleCollisionStrategies.rollStrategyCode(random);
+                }
+                index = 0;
+            }
+
+            @Override
+            protected int operation() {
+                factory.onCollision(strategyCodes[index++], brick, other);
+                return index;
+            }
+        };
+    }
+
+    /**
+     * Measures the heap retained per brick by a whole headless game with a large board.
+     *
+     * @param size the number of rows and of columns of bricks
+     * @return the retained heap bytes divided by the number of bricks
+     */
+    private static double measureBytesPerBrick(int size) {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        long usedBefore = runtime.totalMemory() - runtime.freeMemory();
+        HeadlessSimulation simulation = newGame(size, size);
+        System.gc();
+        long usedAfter = runtime.totalMemory() - runtime.freeMemory();
+        double bytesPerBrick = (double) (usedAfter - usedBefore) / ((long) size * size);
+        System.out.printf("%-40s %14.2f bytes/brick (field arrays: %.3f)%n", "heap " + size + "x" + size,
+                bytesPerBrick, simulation.getGameManager().getBrickField().getBytesPerBrick());
+        return bytesPerBrick;
+    }
+
+    /**
+     * Runs the suite and prints the time per operation of every case.
+     *
+     * @param args optional: --save [baseline file] to record a baseline,
+     *             or --compare [baseline file] to fail on regressions against one
+     * @throws IOException if the baseline file cannot be accessed
+     */
+    public static void main(String[] args) throws IOException {
+        System.setProperty(FrameProfiler.DUMP_FILE_PROPERTY, "");
+        List<Benchmark> benchmarks = new ArrayList<>();
+        for (int size : BOARD_SIZES) {
+            benchmarks.add(boardConstruction(size));
+        }
+        for (int pucksNum : PUCKS_NUMS) {
+            benchmarks.add(frameUpdate(pucksNum));
+        }
+        benchmarks.add(chosenStrategy());
+        benchmarks.add(doubleDispatch());
+        BenchmarkRunner runner = new BenchmarkRunner(WARMUP_ITERATIONS, MEASUREMENT_ITERATIONS);
+        for (Benchmark benchmark : benchmarks) {
+            runner.run(benchmark);
+        }
+        measureBytesPerBrick(MEMORY_BOARD_SIZE);
+        if (args.length == 2 && args[0].equals("--save")) {
+            runner.saveBaseline(Paths.get(args[1]));
+        }
+        else if (args.length == 2 && args[0].equals("--compare")) {
+            Path baselinePath = Paths.get(args[1]);
+            if (runner.compareToBaseline(baselinePath, REGRESSION_TOLERANCE) > 0) {
+                System.exit(1);
+            }
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package bricker.benchmarks;
+
+import bricker.gameobjects.BotSkill;
+import bricker.main.BrickerGameManager;
+import bricker.main.EntityBudget;
+import bricker.main.FrameProfiler;
+import bricker.main.HeadlessSimulation;
+import bricker.main.LatencyHistogram;
+import danogl.util.Vector2;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * PuckStormSoak ramps the number of live pucks in a headless game step by step, keeping every step's
+ * puck count topped up, and records the frame time, allocation rate and garbage collection pauses
+ * of each step. The report names the first puck count at which the simulation falls below 60 frames
+ * per second. Rendering is not part of a headless frame, so the numbers are the logic's cost alone.
+ */
+public class PuckStormSoak {
+
+    /**
+     * The default puck counts of the ramp.
+     */
+    private static final int[] DEFAULT_PUCKS_NUMS = {0, 50, 100, 250, 500, 1000, 2500, 5000};
+
+    private static final int WARMUP_FRAMES = 60;
+    private static final int MEASURED_FRAMES = 240;
+    private static final int BOARD_SIZE = 12;
+    private static final double TARGET_FRAME_NANOS = 1e9 / 60;
+    private static final double NANOS_IN_MILLI = 1e6;
+    private static final double BYTES_IN_KILOBYTE = 1024;
+    private static final String WINDOW_NAME = "bricker-soak";
+    private static final String DEFAULT_OUTPUT_FILE = "puck_storm_report.txt";
+
+    private final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+    private final List<GarbageCollectorMXBean> collectorBeans = ManagementFactory.getGarbageCollectorMXBeans();
+    private final Vector2 spawnLocation = new Vector2(BrickerGameManager.WINDOW_WIDTH / 2,
+            BrickerGameManager.WINDOW_HEIGHT / 2);
+    private HeadlessSimulation simulation;
+    private int restartsNum = 0;
+
+    /**
+     * Starts a new headless game, played by a perfect bot so that it rarely ends by itself, with no
+     * entity budget so that every puck asked for is spawned.
+     */
+    private void newGame() {
+        BrickerGameManager gameManager = new BrickerGameManager(WINDOW_NAME,
+                new Vector2(BrickerGameManager.WINDOW_WIDTH, BrickerGameManager.WINDOW_HEIGHT),
+                BOARD_SIZE, BOARD_SIZE);
+        gameManager.setSeed(0);
+        gameManager.setBotSkill(BotSkill.PERFECT);
+        gameManager.setEntityBudget(EntityBudget.unlimited());
+        simulation = new HeadlessSimulation(gameManager, HeadlessSimulation.DEFAULT_FIXED_DELTA);
+    }
+
+    /**
+     * Spawns pucks until the game has at least a given number of live pucks.
+     *
+     * @param pucksNum the number of pucks
+     */
+    private void topUpPucks(int pucksNum) {
+        BrickerGameManager gameManager = simulation.getGameManager();
+        int missingNum = pucksNum - gameManager.getPucksNum();
+        for (int i = 0; i < missingNum; i += 2) {
+            gameManager.createPuckBalls(spawnLocation);
+        }
+        gameManager.applyDeferredCommands();
+    }
+
+    /**
+     * Simulates a frame with the pucks topped up, starting a new game if the last one ended.
+     *
+     * @param pucksNum the number of pucks to keep alive
+     * @return the time, in nanoseconds, of the frame update
+     */
+    private long frame(int pucksNum) {
+        topUpPucks(pucksNum);
+        long start = System.nanoTime();
+        boolean isInProgress = simulation.step();
+        long frameNanos = System.nanoTime() - start;
+        if (!isInProgress) {
+            restartsNum++;
+            newGame();
+        }
+        return frameNanos;
+    }
+
+    /**
+     * Gets the bytes allocated so far by the current thread, if the JVM can tell.
+     *
+     * @return the allocated bytes, or -1 if unsupported
+     */
+    private long allocatedBytes() {
+        if (threadBean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threadBean)
+                    .getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the total number of collections of all the garbage collectors so far.
+     *
+     * @return the collections count
+     */
+    private long collectionsNum() {
+        long count = 0;
+        for (GarbageCollectorMXBean bean : collectorBeans) {
+            count += Math.max(0, bean.getCollectionCount());
+        }
+        return count;
+    }
+
+    /**
+     * Gets the total time of all the garbage collectors so far.
+     *
+     * @return the collection time, in milliseconds
+     */
+    private long collectionMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean bean : collectorBeans) {
+            millis += Math.max(0, bean.getCollectionTime());
+        }
+        return millis;
+    }
+
+    /**
+     * Runs the ramp and builds the report: one line per puck count, then the first count below 60 FPS.
+     *
+     * @param pucksNums the puck counts of the ramp, in increasing order
+     * @return the report
+     */
+    public String run(int[] pucksNums) {
+        newGame();
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("%8s %10s %10s %10s %10s %12s %6s %8s%n", "pucks", "live", "mean ms",
+                "p99 ms", "max ms", "KB/frame", "GCs", "GC ms"));
+        int firstSlowPucksNum = -1;
+        LatencyHistogram frameTimes = new LatencyHistogram();
+        for (int pucksNum : pucksNums) {
+            for (int i = 0; i < WARMUP_FRAMES; i++) {
+                frame(pucksNum);
+            }
+            frameTimes.reset();
+            long totalNanos = 0;
+            long livePucksSum = 0;
+            long startBytes = allocatedBytes();
+            long startCollections = collectionsNum();
+            long startCollectionMillis = collectionMillis();
+            for (int i = 0; i < MEASURED_FRAMES; i++) {
+                long frameNanos = frame(pucksNum);
+                frameTimes.record(frameNanos);
+                totalNanos += frameNanos;
+                livePucksSum += simulation.getGameManager().getPucksNum();
+            }
+            long allocated = allocatedBytes() - startBytes;
+            double meanNanos = (double) totalNanos / MEASURED_FRAMES;
+            report.append(String.format("%8d %10.0f %10.3f %10.3f %10.3f %12s %6d %8d%n", pucksNum,
+                    (double) livePucksSum / MEASURED_FRAMES, meanNanos / NANOS_IN_MILLI,
+                    frameTimes.percentile(99) / NANOS_IN_MILLI, frameTimes.getMax() / NANOS_IN_MILLI,
+                    startBytes < 0 ? "n/a" : String.format("%.1f", allocated / BYTES_IN_KILOBYTE / MEASURED_FRAMES),
+                    collectionsNum() - startCollections, collectionMillis() - startCollectionMillis));
+            if (firstSlowPucksNum < 0 && meanNanos > TARGET_FRAME_NANOS) {
+                firstSlowPucksNum = pucksNum;
+            }
+        }
+        if (firstSlowPucksNum < 0) {
+            report.append("60 FPS held up to ").append(pucksNums[pucksNums.length - 1]).append(" pucks\n");
+        }
+        else {
+            report.append("below 60 FPS from ").append(firstSlowPucksNum).append(" pucks\n");
+        }
+        report.append("games restarted: ").append(restartsNum).append('\n');
+        return report.toString();
+    }
+
+    /**
+     * Runs the puck storm soak and writes its report to a file.
+     *
+     * @param args optional: [output file] [puck counts...]
+     * @throws IOException if the report cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        String outputFile = args.length > 0 ? args[0] : DEFAULT_OUTPUT_FILE;
+        int[] pucksNums = DEFAULT_PUCKS_NUMS;
+        if (args.length > 1) {
+            pucksNums = new int[args.length - 1];
+            for (int i = 1; i < args.length; i++) {
+                pucksNums[i - 1] = Integer.parseInt(args[i]);
+            }
+        }
+        System.setProperty(FrameProfiler.DUMP_FILE_PROPERTY, "");
+        String report = new PuckStormSoak().run(pucksNums);
+        Files.write(Paths.get(outputFile), report.getBytes());
+        System.out.print(report);
+    }
+}
@@ -2,14 +2,16 @@ package bricker.brick_strategies;
 
 import bricker.main.BrickerGameManager;
 import danogl.GameObject;
-import danogl.collisions.Layer;
 import danogl.util.Counter;
 
 /**
  * BasicCollisionStrategy represents a basic collision strategy
  * for handling collisions between bricks and other game objects.
+ * Strategies keep no per-brick state, so a single instance is shared by all the bricks of a kind.
  */
-public class BasicCollisionStrategy implements CollisionStrategy{
+public sealed class BasicCollisionStrategy implements CollisionStrategy
+        permits CameraChangeStrategy, DoubleCollisionStrategies, ExtraBallStrategy, ExtraLifeStrategy,
+        ExtraPaddleStrategy {
 
     private final BrickerGameManager brickerGameManager;
     private final Counter briksCounter;
@@ -33,7 +35,7 @@ public class BasicCollisionStrategy implements CollisionStrategy{
      */
     @Override
     public void onCollision(GameObject thisBrick, GameObject other) {
-        if (brickerGameManager.removeObject(thisBrick, Layer.STATIC_OBJECTS)){
+        if (brickerGameManager.removeBrick(thisBrick)){
             briksCounter.decrement();
         }
     }
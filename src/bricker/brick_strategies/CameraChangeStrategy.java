@@ -8,7 +8,7 @@ import danogl.util.Counter;
  * CameraChangeStrategy represents a collision strategy for changing the camera mode
  * when a brick collides with the main ball.
  */
-public class CameraChangeStrategy extends BasicCollisionStrategy {
+public final class CameraChangeStrategy extends BasicCollisionStrategy {
     private final BrickerGameManager brickerGameManager;
 
     /**
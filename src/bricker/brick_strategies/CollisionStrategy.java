@@ -4,8 +4,10 @@ import danogl.GameObject;
 
 /**
  * CollisionStrategy represents the strategy for handling collisions between game objects.
+ * The hierarchy is closed, so CollisionStrategyFactory can dispatch on a brick's strategy code
+ * with a switch over the final strategy classes.
  */
-public interface CollisionStrategy {
+public sealed interface CollisionStrategy permits BasicCollisionStrategy {
 
     /**
      * Handles the collision between two game objects.
@@ -1,10 +1,15 @@
 package bricker.brick_strategies;
 
 import bricker.main.BrickerGameManager;
+import danogl.GameObject;
 import danogl.util.Counter;
 
+import java.util.Random;
+
 /**
- * CollisionStrategyFactory is responsible for creating collision strategies for bricks in the Bricker game.
+ * CollisionStrategyFactory is responsible for the collision strategies of the bricks in the Bricker game.
+ * A brick is described by a small strategy code; the factory keeps one shared instance per strategy
+ * and dispatches a brick's collision to it with a switch, so no per-brick strategy objects are created.
  */
 public class CollisionStrategyFactory {
 
@@ -33,39 +38,131 @@ public class CollisionStrategyFactory {
      */
     public static final int DOUBLE_STRATEGIES = 4;
 
+    /**
+     * Represents the basic strategy. Any constant that is not a special strategy is basic too.
+     */
+    public static final int BASIC_STRATEGY = 5;
 
     /**
-     * Constructs a CollisionStrategyFactory object.
+     * The flag of the strategy codes of double strategies; the rest of such a code holds the
+     * combined strategies, see DoubleCollisionStrategies.
      */
-    public CollisionStrategyFactory() {
-    }
+    public static final int DOUBLE_CODE_FLAG = 0x80;
 
+    /**
+     * The number of distinct strategy codes.
+     */
+    private static final int CODES_NUM = 0x100;
+
+    private final BrickerGameManager brickerGameManager;
+    private final Counter bricksCounter;
+    private final BasicCollisionStrategy basicStrategy;
+    private final ExtraBallStrategy extraBallStrategy;
+    private final ExtraPaddleStrategy extraPaddleStrategy;
+    private final CameraChangeStrategy cameraChangeStrategy;
+    private final ExtraLifeStrategy extraLifeStrategy;
+    private final DoubleCollisionStrategies[] doubleStrategies = new DoubleCollisionStrategies[CODES_NUM];
 
     /**
-     * Chooses a specific collision strategy based on a given result.
+     * Constructs a CollisionStrategyFactory with the shared strategies of a board.
      *
-     * @param strategyConstant   constant that represent the desire strategy.
      * @param brickerGameManager The game manager responsible for managing the game.
      * @param bricksCounter      The counter for tracking the number of bricks.
-     * @return A collision strategy.
      */
-    public CollisionStrategy chosenStrategy(int strategyConstant, BrickerGameManager brickerGameManager,
-                                             Counter bricksCounter) {
+    public CollisionStrategyFactory(BrickerGameManager brickerGameManager, Counter bricksCounter) {
+        this.brickerGameManager = brickerGameManager;
+        this.bricksCounter = bricksCounter;
+        basicStrategy = new BasicCollisionStrategy(brickerGameManager, bricksCounter);
+        extraBallStrategy = new ExtraBallStrategy(brickerGameManager, bricksCounter);
+        extraPaddleStrategy = new ExtraPaddleStrategy(brickerGameManager, bricksCounter);
+        cameraChangeStrategy = new CameraChangeStrategy(brickerGameManager, bricksCounter);
+        extraLifeStrategy = new ExtraLifeStrategy(brickerGameManager, bricksCounter);
+    }
+
+    /**
+     * Rolls the strategy code of a new brick.
+     *
+     * @param random            The random generator of the session.
+     * @param strategyRollRange The exclusive upper bound of the roll; rolls above the special
+     *                          strategies are basic bricks.
+     * @return The strategy code of the brick.
+     */
+    public static int rollStrategyCode(Random random, int strategyRollRange) {
+        int strategyConstant = random.nextInt(strategyRollRange);
         if (strategyConstant == DOUBLE_STRATEGIES) {
-            return new DoubleCollisionStrategies(brickerGameManager, bricksCounter);
+            return DoubleCollisionStrategies.rollStrategyCode(random);
+        }
+        return Math.min(strategyConstant, BASIC_STRATEGY);
+    }
+
+    /**
+     * Chooses the shared collision strategy of a strategy code.
+     *
+     * @param strategyCode The strategy code of a brick.
+     * @return A collision strategy.
+     */
+    public CollisionStrategy chosenStrategy(int strategyCode) {
+        if ((strategyCode & DOUBLE_CODE_FLAG) != 0) {
+            return doubleStrategy(strategyCode);
         }
-        if (strategyConstant == EXTRA_LIFE_STRATEGY) {
-            return new ExtraLifeStrategy(brickerGameManager, bricksCounter);
+        switch (strategyCode) {
+            case EXTRA_BALL_STRATEGY:
+                return extraBallStrategy;
+            case EXTRA_PADDLE_STRATEGY:
+                return extraPaddleStrategy;
+            case CAMERA_CHANGE_STRATEGY:
+                return cameraChangeStrategy;
+            case EXTRA_LIFE_STRATEGY:
+                return extraLifeStrategy;
+            default:
+                return basicStrategy;
         }
-        if (strategyConstant == CAMERA_CHANGE_STRATEGY) {
-            return new CameraChangeStrategy(brickerGameManager, bricksCounter);
+    }
+
+    /**
+     * Handles the collision of a brick with the strategy of its code. Every case calls a final
+     * strategy class directly, so the call sites stay monomorphic.
+     *
+     * @param strategyCode The strategy code of the brick.
+     * @param thisBrick    The brick involved in the collision.
+     * @param other        The other game object involved in the collision.
+     */
+    public void onCollision(int strategyCode, GameObject thisBrick, GameObject other) {
+        if ((strategyCode & DOUBLE_CODE_FLAG) != 0) {
+            doubleStrategy(strategyCode).onCollision(thisBrick, other);
+            return;
         }
-        if (strategyConstant == EXTRA_PADDLE_STRATEGY) {
-            return new ExtraPaddleStrategy(brickerGameManager, bricksCounter);
+        switch (strategyCode) {
+            case EXTRA_BALL_STRATEGY:
+                extraBallStrategy.onCollision(thisBrick, other);
+                break;
+            case EXTRA_PADDLE_STRATEGY:
+                extraPaddleStrategy.onCollision(thisBrick, other);
+                break;
+            case CAMERA_CHANGE_STRATEGY:
+                cameraChangeStrategy.onCollision(thisBrick, other);
+                break;
+            case EXTRA_LIFE_STRATEGY:
+                extraLifeStrategy.onCollision(thisBrick, other);
+                break;
+            default:
+                basicStrategy.onCollision(thisBrick, other);
         }
-        if (strategyConstant == EXTRA_BALL_STRATEGY) {
-            return new ExtraBallStrategy(brickerGameManager, bricksCounter);
+    }
+
+    /**
+     * Gets the shared double strategy of a double strategy code, creating it on first use.
+     * There are at most a few dozen distinct combinations.
+     *
+     * @param strategyCode A double strategy code.
+     * @return The double strategy.
+     */
+    private DoubleCollisionStrategies doubleStrategy(int strategyCode) {
+        DoubleCollisionStrategies strategy = doubleStrategies[strategyCode];
+        if (strategy == null) {
+            strategy = new DoubleCollisionStrategies(brickerGameManager, bricksCounter, this, strategyCode);
+            doubleStrategies[strategyCode] = strategy;
         }
-        return new BasicCollisionStrategy(brickerGameManager, bricksCounter);
+        return strategy;
     }
 }
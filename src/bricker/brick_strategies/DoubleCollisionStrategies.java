@@ -10,52 +10,65 @@ import java.util.Random;
  * DoubleCollisionStrategies class represents a collision strategy
  * that combines multiple collision strategies
  * for bricks in the game. It extends the BasicCollisionStrategy class.
+ *
+ * <p>The combined strategies are rolled once per brick into its strategy code: the
+ * DOUBLE_CODE_FLAG, one bit for a third strategy, and two bits per combined strategy.
+ * One instance is shared by all the bricks with the same combination.</p>
  */
-public class DoubleCollisionStrategies extends BasicCollisionStrategy {
+public final class DoubleCollisionStrategies extends BasicCollisionStrategy {
 
-    private final Random random;
-    private CollisionStrategy[] strategiesArray;
-    private CollisionStrategyFactory collisionStrategyFactory;
+    private static final int COMBINED_CODE_BITS = 2;
+    private static final int COMBINED_CODE_MASK = 0x3;
+    private static final int THIRD_STRATEGY_BIT = 0x40;
+    private static final int MAX_STRATEGIES_NUM = 3;
+
+    private final CollisionStrategyFactory collisionStrategyFactory;
+    private final int[] strategyCodes;
 
     /**
      * Constructor for DoubleCollisionStrategies.
      *
-     * @param brickerGameManager the game manager instance.
-     * @param bricksCounter       the counter for the remaining bricks.
+     * @param brickerGameManager       the game manager instance.
+     * @param bricksCounter            the counter for the remaining bricks.
+     * @param collisionStrategyFactory the factory dispatching the combined strategies.
+     * @param strategyCode             the double strategy code of the combination.
      */
-    public DoubleCollisionStrategies(BrickerGameManager brickerGameManager, Counter bricksCounter) {
+    public DoubleCollisionStrategies(BrickerGameManager brickerGameManager, Counter bricksCounter,
+                                     CollisionStrategyFactory collisionStrategyFactory, int strategyCode) {
         super(brickerGameManager, bricksCounter);
-        this.collisionStrategyFactory = new CollisionStrategyFactory();
-        this.random = new Random();
-        strategiesArray = createDuobleStrategyBrick(brickerGameManager, bricksCounter);
+        this.collisionStrategyFactory = collisionStrategyFactory;
+        int strategiesNum = (strategyCode & THIRD_STRATEGY_BIT) != 0 ? MAX_STRATEGIES_NUM : 2;
+        strategyCodes = new int[strategiesNum];
+        for (int i = 0; i < strategiesNum; i++) {
+            strategyCodes[i] = (strategyCode >> (i * COMBINED_CODE_BITS)) & COMBINED_CODE_MASK;
+        }
     }
 
     /**
-     * Creates an array of collision strategies for a brick with a chance of having double strategies.
+     * Rolls the strategies of a brick with a chance of having double strategies, and encodes them
+     * into a strategy code.
      *
-     * @param brickerGameManager The game manager responsible for managing the game.
-     * @param bricksCounter      The counter for tracking the number of bricks.
-     * @return An array of collision strategies.
+     * @param random The random generator of the session.
+     * @return The double strategy code.
      */
-    private CollisionStrategy[] createDuobleStrategyBrick(BrickerGameManager brickerGameManager,
-                                                         Counter bricksCounter){
+    public static int rollStrategyCode(Random random) {
         int strategiesNum = 2;
         int[] results = {random.nextInt(5), random.nextInt(5), -1};
-        if (results[0] == collisionStrategyFactory.DOUBLE_STRATEGIES ||
-                results[1] == collisionStrategyFactory.DOUBLE_STRATEGIES){
+        if (results[0] == CollisionStrategyFactory.DOUBLE_STRATEGIES ||
+                results[1] == CollisionStrategyFactory.DOUBLE_STRATEGIES){
             strategiesNum++;
         }
+        int strategyCode = CollisionStrategyFactory.DOUBLE_CODE_FLAG;
+        if (strategiesNum == MAX_STRATEGIES_NUM) {
+            strategyCode |= THIRD_STRATEGY_BIT;
+        }
         for (int i = 0; i < strategiesNum; i++) {
-            if (results[i] == collisionStrategyFactory.DOUBLE_STRATEGIES || results[i] < 0) {
+            if (results[i] == CollisionStrategyFactory.DOUBLE_STRATEGIES || results[i] < 0) {
                 results[i] = random.nextInt(4);
             }
+            strategyCode |= results[i] << (i * COMBINED_CODE_BITS);
         }
-        CollisionStrategy[] collisionStrategies = new CollisionStrategy[strategiesNum];
-        for (int i = 0; i < collisionStrategies.length; i++) {
-            collisionStrategies[i] = collisionStrategyFactory.chosenStrategy(results[i],
-                    brickerGameManager, bricksCounter);
-        }
-        return collisionStrategies;
+        return strategyCode;
     }
 
     /**
@@ -66,8 +79,8 @@ public class DoubleCollisionStrategies extends BasicCollisionStrategy {
      */
     @Override
     public void onCollision(GameObject thisBrick, GameObject other) {
-        for (CollisionStrategy strategy:strategiesArray){
-            strategy.onCollision(thisBrick, other);
+        for (int strategyCode : strategyCodes) {
+            collisionStrategyFactory.onCollision(strategyCode, thisBrick, other);
         }
     }
 }
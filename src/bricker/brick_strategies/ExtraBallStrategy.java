@@ -8,7 +8,7 @@ import danogl.util.Counter;
  * ExtraBallStrategy represents a collision strategy for creating extra balls when
  * a brick collides with another game object.
  */
-public class ExtraBallStrategy extends BasicCollisionStrategy{
+public final class ExtraBallStrategy extends BasicCollisionStrategy{
 
     private final BrickerGameManager brickerGameManager;
 
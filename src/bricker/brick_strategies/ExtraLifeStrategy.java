@@ -8,7 +8,7 @@ import danogl.util.Counter;
  * ExtraLifeStrategy represents a collision strategy for creating extra life when
  * a brick collides with another game object.
  */
-public class ExtraLifeStrategy extends BasicCollisionStrategy {
+public final class ExtraLifeStrategy extends BasicCollisionStrategy {
 
     private final BrickerGameManager brickerGameManager;
 
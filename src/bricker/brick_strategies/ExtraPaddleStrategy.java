@@ -8,7 +8,7 @@ import danogl.util.Counter;
  * ExtraPaddleStrategy represents a collision strategy for locating an extra paddle when
  * a brick collides with another game object.
  */
-public class ExtraPaddleStrategy extends BasicCollisionStrategy {
+public final class ExtraPaddleStrategy extends BasicCollisionStrategy {
 
     private final BrickerGameManager brickerGameManager;
 
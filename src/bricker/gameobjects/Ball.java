@@ -14,6 +14,8 @@ public class Ball extends GameObject {
 
     private final Sound collisionSound;
     private int collisionCounter = 0;
+    private Vector2 tickStartTopLeft;
+    private GameObject lastPaddle;
 
     /**
      * Construct a new Ball instance.
@@ -23,16 +25,29 @@ public class Ball extends GameObject {
      * @param dimensions     Width and height in window coordinates.
      * @param renderable     The renderable representing the ball. Can be null, in which case
      *                       the ball will not be rendered.
-     * @param collisionSound The sound to play upon collision.
+     * @param collisionSound The sound to play upon collision. Can be null, in which case
+     *                       no sound is played.
      */
     public Ball(Vector2 topLeftCorner, Vector2 dimensions, Renderable renderable, Sound collisionSound) {
         super(topLeftCorner, dimensions, renderable);
         this.collisionSound = collisionSound;
     }
 
+    /**
+     * Records where the ball starts the tick, then moves it.
+     *
+     * @param deltaTime The time elapsed, in seconds, since the last frame.
+     */
+    @Override
+    public void update(float deltaTime) {
+        tickStartTopLeft = getTopLeftCorner();
+        super.update(deltaTime);
+    }
+
     /**
      * Called when the ball collides with another game object.
-     * Flips the ball's velocity based on the collision normal and plays a sound.
+     * Flips the ball's velocity based on the collision normal, plays a sound and remembers the
+     * last paddle that hit it.
      *
      * @param other      The other game object involved in the collision.
      * @param collision  Information about the collision.
@@ -40,12 +55,76 @@ public class Ball extends GameObject {
     @Override
     public void onCollisionEnter(GameObject other, Collision collision) {
         super.onCollisionEnter(other, collision);
-        Vector2 newVelocity = getVelocity().flipped(collision.getNormal());
-        setVelocity(newVelocity);
-        collisionSound.play();
+        bounce(collision.getNormal());
+        if (other instanceof Paddle) {
+            lastPaddle = other;
+        }
+    }
+
+    /**
+     * Gets the last paddle the ball bounced off.
+     *
+     * @return The paddle, or null if no paddle hit the ball since it was placed.
+     */
+    public GameObject getLastPaddle() {
+        return lastPaddle;
+    }
+
+    /**
+     * Flips the ball's velocity along a collision normal, plays the collision sound
+     * and counts the collision.
+     *
+     * @param normal The normal of the surface the ball bounced off.
+     */
+    public void bounce(Vector2 normal) {
+        float normalX = normal.x();
+        float normalY = normal.y();
+        Vector2 velocity = getVelocity();
+        float twiceDot = 2 * (velocity.x() * normalX + velocity.y() * normalY);
+        float newVelX = velocity.x() - twiceDot * normalX;
+        float newVelY = velocity.y() - twiceDot * normalY;
+        if (newVelX != velocity.x()) {
+            transform().setVelocityX(newVelX);
+        }
+        if (newVelY != velocity.y()) {
+            transform().setVelocityY(newVelY);
+        }
+        if (collisionSound != null) {
+            collisionSound.play();
+        }
         collisionCounter++;
     }
 
+    /**
+     * Resets the ball to a resting state, so it can be reused: no velocity and no collisions counted.
+     */
+    public void reset() {
+        setVelocity(Vector2.ZERO);
+        collisionCounter = 0;
+        tickStartTopLeft = null;
+        lastPaddle = null;
+    }
+
+    /**
+     * Gets the position of the ball at the start of the current tick, before it moved and before
+     * the engine bounced it off anything.
+     *
+     * @return The top-left corner at the start of the tick, or the current one if the ball has not
+     *         moved since it was placed.
+     */
+    public Vector2 getTickStartTopLeft() {
+        return tickStartTopLeft != null ? tickStartTopLeft : getTopLeftCorner();
+    }
+
+    /**
+     * Sets the collision counter, as when restoring a saved game.
+     *
+     * @param collisionCounter The number of collisions counted.
+     */
+    public void setCollisionCounter(int collisionCounter) {
+        this.collisionCounter = collisionCounter;
+    }
+
     /**
      * Gets the collision counter.
      *
@@ -0,0 +1,162 @@
+package bricker.gameobjects;
+
+import bricker.main.SnapshotRandom;
+import danogl.gui.rendering.Renderable;
+import danogl.util.Vector2;
+
+import java.nio.ByteBuffer;
+
+/**
+ * BotPaddle is a paddle that plays by itself. Instead of polling keys, it moves toward the point where
+ * the ball will cross the paddle's line, predicted analytically: the ball's straight path, folded by
+ * its reflections off the side walls and the ceiling. The ball only changes course when it collides,
+ * so the prediction is recomputed only after the ball's collision count or velocity changes, or the
+ * ball is served again, and a frame otherwise costs a couple of comparisons.
+ *
+ * <p>The aim errors are drawn from the bot's own generator, never from the game's, and the aim is
+ * part of the saved game state, so a restored game makes exactly the draws the original one did.
+ */
+public class BotPaddle extends Paddle {
+
+    /**
+     * The size, in bytes, of the state written by writeState().
+     */
+    public static final int STATE_SIZE = Long.BYTES + Integer.BYTES + 3 * Float.BYTES;
+
+    private final Ball ball;
+    private final BotSkill skill;
+    private final SnapshotRandom random;
+    private final float leftWallX;
+    private final float rightWallX;
+    private final float ceilingY;
+    private int seenCollisionsNum = -1;
+    private float seenVelocityX;
+    private float seenVelocityY;
+    private float aimX;
+
+    /**
+     * Constructs a new BotPaddle instance.
+     *
+     * @param topLeftCorner Position of the object, in window coordinates (pixels).
+     * @param dimensions    Width and height in window coordinates.
+     * @param renderable    The renderable representing the object. Can be null, in which case
+     *                      the GameObject will not be rendered.
+     * @param rightLimit    The right limit for the paddle's movement.
+     * @param ball          The ball to intercept.
+     * @param skill         The skill level of the bot.
+     * @param aimSeed       The seed of the bot's own generator of aim errors.
+     * @param leftWallX     The x coordinate of the inner edge of the left wall.
+     * @param rightWallX    The x coordinate of the inner edge of the right wall.
+     * @param ceilingY      The y coordinate of the inner edge of the upper wall.
+     */
+    public BotPaddle(Vector2 topLeftCorner, Vector2 dimensions, Renderable renderable, float rightLimit,
+                     Ball ball, BotSkill skill, long aimSeed, float leftWallX, float rightWallX,
+                     float ceilingY) {
+        super(topLeftCorner, dimensions, renderable, null, rightLimit);
+        this.ball = ball;
+        this.skill = skill;
+        this.random = new SnapshotRandom(aimSeed);
+        this.leftWallX = leftWallX;
+        this.rightWallX = rightWallX;
+        this.ceilingY = ceilingY;
+    }
+
+    /**
+     * Chooses the direction toward the aim, recomputing the aim if the ball changed course.
+     *
+     * @param canMoveLeft  true if the paddle is not at its left limit.
+     * @param canMoveRight true if the paddle is not at its right limit.
+     * @return -1 to move left, 1 to move right, 0 to stop.
+     */
+    @Override
+    protected int movementDir(boolean canMoveLeft, boolean canMoveRight) {
+        Vector2 velocity = ball.getVelocity();
+        if (ball.getCollisionCounter() != seenCollisionsNum || velocity.x() != seenVelocityX
+                || velocity.y() != seenVelocityY) {
+            seenCollisionsNum = ball.getCollisionCounter();
+            seenVelocityX = velocity.x();
+            seenVelocityY = velocity.y();
+            aimX = predictInterceptionX() + (random.nextFloat() * 2 - 1) * skill.getAimError();
+        }
+        float paddleCenterX = getTopLeftCorner().x() + getDimensions().x() / 2;
+        if (aimX < paddleCenterX - skill.getDeadZone() && canMoveLeft) {
+            return -1;
+        }
+        if (aimX > paddleCenterX + skill.getDeadZone() && canMoveRight) {
+            return 1;
+        }
+        return 0;
+    }
+
+    /**
+     * Makes the bot aim anew on its next update, as when the ball is served again from the center:
+     * a served ball may keep the velocity it fell with, so the bot would not see the change.
+     */
+    public void retarget() {
+        seenCollisionsNum = -1;
+    }
+
+    /**
+     * Writes the state of the bot's aim: its generator, the ball course it aimed at and the aim.
+     *
+     * @param buffer The buffer to write to.
+     */
+    public void writeState(ByteBuffer buffer) {
+        buffer.putLong(random.getState());
+        buffer.putInt(seenCollisionsNum);
+        buffer.putFloat(seenVelocityX);
+        buffer.putFloat(seenVelocityY);
+        buffer.putFloat(aimX);
+    }
+
+    /**
+     * Reads a state written by writeState().
+     *
+     * @param buffer The buffer to read from.
+     */
+    public void readState(ByteBuffer buffer) {
+        random.setState(buffer.getLong());
+        seenCollisionsNum = buffer.getInt();
+        seenVelocityX = buffer.getFloat();
+        seenVelocityY = buffer.getFloat();
+        aimX = buffer.getFloat();
+    }
+
+    /**
+     * Predicts the x coordinate of the ball's center when it next reaches the paddle's line. A ball
+     * moving up is assumed to come back down from the ceiling; hitting a brick on the way changes its
+     * course, which triggers a new prediction.
+     *
+     * @return The predicted x coordinate.
+     */
+    private float predictInterceptionX() {
+        Vector2 ballTopLeft = ball.getTopLeftCorner();
+        Vector2 ballDimensions = ball.getDimensions();
+        Vector2 velocity = ball.getVelocity();
+        float centerX = ballTopLeft.x() + ballDimensions.x() / 2;
+        float centerY = ballTopLeft.y() + ballDimensions.y() / 2;
+        float interceptY = getTopLeftCorner().y() - ballDimensions.y() / 2;
+        float highestY = ceilingY + ballDimensions.y() / 2;
+        float distanceY;
+        if (velocity.y() > 0) {
+            distanceY = interceptY - centerY;
+        }
+        else {
+            distanceY = (centerY - highestY) + (interceptY - highestY);
+        }
+        if (velocity.y() == 0 || distanceY <= 0) {
+            return centerX;
+        }
+        float unfoldedX = centerX + velocity.x() * distanceY / Math.abs(velocity.y());
+        float minX = leftWallX + ballDimensions.x() / 2;
+        float width = rightWallX - ballDimensions.x() / 2 - minX;
+        if (width <= 0) {
+            return centerX;
+        }
+        float folded = (unfoldedX - minX) % (2 * width);
+        if (folded < 0) {
+            folded += 2 * width;
+        }
+        return minX + (folded <= width ? folded : 2 * width - folded);
+    }
+}
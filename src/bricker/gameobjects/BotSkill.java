@@ -0,0 +1,70 @@
+package bricker.gameobjects;
+
+/**
+ * BotSkill is the skill level of a BotPaddle: how far off its aim can be, how close to its target
+ * it settles, and the sprite it is drawn with.
+ */
+public enum BotSkill {
+
+    /**
+     * Aims exactly and settles tightly.
+     */
+    PERFECT(0, 2, BotSkill.BOT_GOOD_PATH),
+
+    /**
+     * Aims within a quarter paddle and settles loosely.
+     */
+    GOOD(25, 6, BotSkill.BOT_GOOD_PATH),
+
+    /**
+     * Aims within a paddle's width and settles sloppily, so it misses often.
+     */
+    BAD(100, 15, BotSkill.BOT_BAD_PATH);
+
+    private static final String BOT_GOOD_PATH = "assets/botGood.png";
+    private static final String BOT_BAD_PATH = "assets/botBad.png";
+
+    private final float aimError;
+    private final float deadZone;
+    private final String imagePath;
+
+    /**
+     * Constructs a BotSkill.
+     *
+     * @param aimError  The largest distance, in pixels, between the predicted interception and the aim.
+     * @param deadZone  The distance, in pixels, from the aim within which the paddle stops.
+     * @param imagePath The path of the paddle's sprite.
+     */
+    BotSkill(float aimError, float deadZone, String imagePath) {
+        this.aimError = aimError;
+        this.deadZone = deadZone;
+        this.imagePath = imagePath;
+    }
+
+    /**
+     * Gets the largest aim error.
+     *
+     * @return The aim error, in pixels.
+     */
+    public float getAimError() {
+        return aimError;
+    }
+
+    /**
+     * Gets the dead zone around the aim.
+     *
+     * @return The dead zone, in pixels.
+     */
+    public float getDeadZone() {
+        return deadZone;
+    }
+
+    /**
+     * Gets the path of the paddle's sprite.
+     *
+     * @return The image path.
+     */
+    public String getImagePath() {
+        return imagePath;
+    }
+}
@@ -1,44 +1,43 @@
 package bricker.gameobjects;
 
-import bricker.brick_strategies.CollisionStrategy;
 import danogl.GameObject;
-import danogl.collisions.Collision;
-import danogl.gui.rendering.Renderable;
 import danogl.util.Vector2;
 
 /**
- * Brick is a game object representing a brick in the Bricker game.
- * It interacts with other game objects using a collision strategy.
+ * Brick is a game object representing a single brick of a BrickField in the Bricker game.
+ * The field does not keep a Brick per cell; it moves one Brick to the cell that was hit and hands
+ * it to the cell's collision strategy, so strategies see the brick's position as before.
  */
 public class Brick extends GameObject {
 
-    private final CollisionStrategy collisionStrategy;
+    private int gridIndex = -1;
 
     /**
      * Construct a new Brick instance.
      *
-     * @param topLeftCorner Position of the brick, in window coordinates (pixels).
-     *                      Note that (0,0) is the top-left corner of the window.
-     * @param dimensions    Width and height in window coordinates.
-     * @param renderable    The renderable representing the brick. Can be null, in which case
-     *                      the brick will not be rendered.
-     * @param collisionStrategy The strategy to execute upon collision.
+     * @param dimensions Width and height of a brick in window coordinates.
      */
-    public Brick(Vector2 topLeftCorner, Vector2 dimensions, Renderable renderable,
-                 CollisionStrategy collisionStrategy) {
-        super(topLeftCorner, dimensions, renderable);
-        this.collisionStrategy = collisionStrategy;
+    public Brick(Vector2 dimensions) {
+        super(Vector2.ZERO, dimensions, null);
     }
 
     /**
-     * Called on the first frame of a collision.
+     * Gets the index of the brick's cell in its BrickField.
      *
-     * @param other      The GameObject with which a collision occurred.
-     * @param collision  Information about the collision.
+     * @return The cell index, or -1 if the brick is not in a field.
      */
-    @Override
-    public void onCollisionEnter(GameObject other, Collision collision) {
-        super.onCollisionEnter(other, collision);
-        collisionStrategy.onCollision(this, other);
+    public int getGridIndex() {
+        return gridIndex;
+    }
+
+    /**
+     * Moves the brick to a cell of its BrickField.
+     *
+     * @param gridIndex     The cell index.
+     * @param topLeftCorner The top-left corner of the cell's brick, in window coordinates.
+     */
+    void moveToCell(int gridIndex, Vector2 topLeftCorner) {
+        this.gridIndex = gridIndex;
+        setTopLeftCorner(topLeftCorner);
     }
 }
@@ -0,0 +1,611 @@
+package bricker.gameobjects;
+
+import bricker.brick_strategies.CollisionStrategyFactory;
+import danogl.GameObject;
+import danogl.gui.rendering.ImageRenderable;
+import danogl.util.Vector2;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * BrickField is the whole board of bricks of the Bricker game, stored as a struct of arrays:
+ * one alive bit and one strategy code per cell of a regular row/column grid, and optionally hit points. A cell's grid
+ * coordinates are implied by its index (slot row * columns + column), so no per-brick objects,
+ * vectors or strategies exist. A ball only checks the few cells it overlaps, and a hit cell is
+ * handled by a collision strategy exactly as a brick object would be.
+ *
+ * <p>Bricks sleep while no ball can reach them: only bricks within a ball's size of an empty cell
+ * (or of the open bottom of the field) are active and checked for collisions. Removing a brick wakes
+ * the sleeping bricks around it, so collision work follows the exposed frontier of the board.</p>
+ *
+ * <p>A ball that moved farther in a tick than its own size or a brick's height is swept along its
+ * path in sub-steps no longer than that, and stopped at the first step that hits a brick, so fast
+ * balls and long frames cannot tunnel through the board.</p>
+ *
+ * <p>The rows are stored as a ring: a cell's index names its slot, and the slot row of the top row
+ * turns as rows are recycled. In endless mode a cleared bottom row is recycled as a new top row,
+ * every other row moving one row down, so the board never grows.</p>
+ *
+ * <p>The bricks are drawn once into a cached image that is rendered as a single sprite. Removing
+ * bricks marks the rectangle of cells around them dirty, and only that rectangle is cleared and
+ * redrawn, once per frame, so rendering cost does not depend on the number of bricks.</p>
+ */
+public class BrickField extends GameObject {
+
+    private static final Color TRANSPARENT = new Color(0, 0, 0, 0);
+
+    private final int rowsNum;
+    private final int colsNum;
+    private final float left;
+    private final float top;
+    private final float cellWidth;
+    private final float cellHeight;
+    private final float brickWidth;
+    private final float brickHeight;
+    private final long[] aliveBits;
+    private final long[] activeBits;
+    private final int reachRowsNum;
+    private final int[] rowAliveNums;
+    //the slot row of the top row
+    private int topSlotRow = 0;
+    private final int reachColsNum;
+    private int activeNum = 0;
+    private final int cellsNum;
+    private final ByteBuffer strategyCodes;
+    private final ByteBuffer hitPoints;
+    private final byte[] damages;
+    private final Brick hitBrick;
+    private final CollisionStrategyFactory collisionStrategyFactory;
+    private final Image brickImage;
+    private final BufferedImage fieldImage;
+    private final int visibleRowsNum;
+    private boolean isImageDirty = true;
+    //the dirty rectangle of cells, inclusive
+    private int dirtyFirstRow;
+    private int dirtyLastRow;
+    private int dirtyFirstCol;
+    private int dirtyLastCol;
+
+    /**
+     * Constructs a BrickField with every brick alive.
+     *
+     * @param topLeftCorner      The top-left corner of the field, in window coordinates.
+     * @param cellDimensions     The width and height of a cell, including the gaps between bricks.
+     * @param brickDimensions    The width and height of a brick.
+     * @param strategyCodes      The strategy code of every cell (as an unsigned byte), in row-major order,
+     *                           read in place; the number of rows is its limit divided by colsNum.
+     * @param hitPoints          The number of hits every cell's brick takes before its strategy is applied
+     *                           (as an unsigned byte, 0 meaning 1), in row-major order and read in place,
+     *                           or null for bricks of a single hit.
+     * @param colsNum            The number of columns.
+     * @param visibleHeight      The height, in pixels, of the part of the field that can be on screen.
+     * @param maxBallSize        The largest width or height of a ball, which sets how far from an empty
+     *                           cell a brick can be hit.
+     * @param brickImage         The image of a brick, or null to render nothing.
+     * @param collisionStrategyFactory The factory dispatching the collisions of the bricks by their
+     *                                 strategy codes.
+     */
+    public BrickField(Vector2 topLeftCorner, Vector2 cellDimensions, Vector2 brickDimensions,
+                      ByteBuffer strategyCodes, ByteBuffer hitPoints, int colsNum, float visibleHeight,
+                      float maxBallSize, Image brickImage, CollisionStrategyFactory collisionStrategyFactory) {
+        super(topLeftCorner, imageDimensions(colsNum, visibleRowsNum(strategyCodes.limit() / colsNum,
+                cellDimensions.y(), visibleHeight), cellDimensions), null);
+        this.colsNum = colsNum;
+        this.cellsNum = strategyCodes.limit();
+        this.rowsNum = cellsNum / colsNum;
+        this.left = topLeftCorner.x();
+        this.top = topLeftCorner.y();
+        this.cellWidth = cellDimensions.x();
+        this.cellHeight = cellDimensions.y();
+        this.brickWidth = brickDimensions.x();
+        this.brickHeight = brickDimensions.y();
+        this.strategyCodes = strategyCodes;
+        this.hitPoints = hitPoints;
+        this.damages = hitPoints != null ? new byte[cellsNum] : null;
+        this.aliveBits = new long[(cellsNum + Long.SIZE - 1) / Long.SIZE];
+        Arrays.fill(aliveBits, -1L);
+        if (cellsNum % Long.SIZE != 0) {
+            aliveBits[aliveBits.length - 1] = (1L << cellsNum) - 1;
+        }
+        this.rowAliveNums = new int[rowsNum];
+        Arrays.fill(rowAliveNums, colsNum);
+        this.activeBits = new long[aliveBits.length];
+        this.reachRowsNum = (int) Math.ceil(maxBallSize / cellHeight);
+        this.reachColsNum = (int) Math.ceil(maxBallSize / cellWidth);
+        wake(rowsNum, 0, colsNum - 1);
+        this.hitBrick = new Brick(brickDimensions);
+        this.collisionStrategyFactory = collisionStrategyFactory;
+        this.brickImage = brickImage;
+        this.visibleRowsNum = visibleRowsNum(rowsNum, cellHeight, visibleHeight);
+        if (brickImage != null && visibleRowsNum > 0) {
+            Vector2 imageDimensions = getDimensions();
+            fieldImage = new BufferedImage((int) imageDimensions.x(), (int) imageDimensions.y(),
+                    BufferedImage.TYPE_INT_ARGB);
+            renderer().setRenderable(new ImageRenderable(fieldImage));
+        }
+        else {
+            fieldImage = null;
+        }
+        dirtyFirstRow = 0;
+        dirtyLastRow = visibleRowsNum - 1;
+        dirtyFirstCol = 0;
+        dirtyLastCol = colsNum - 1;
+    }
+
+    /**
+     * Gets the number of rows that can be on screen, which the field image covers.
+     *
+     * @param rowsNum       The number of rows.
+     * @param cellHeight    The height of a cell.
+     * @param visibleHeight The height, in pixels, of the part of the field that can be on screen.
+     * @return The number of visible rows, counting a partly visible row.
+     */
+    private static int visibleRowsNum(int rowsNum, float cellHeight, float visibleHeight) {
+        return Math.min(rowsNum, (int) Math.ceil(visibleHeight / cellHeight));
+    }
+
+    /**
+     * Gets the size, in whole pixels, of the field image, which is also the size of the field object,
+     * so the image is rendered unscaled and in line with the cells.
+     *
+     * @param colsNum        The number of columns.
+     * @param visibleRowsNum The number of visible rows.
+     * @param cellDimensions The width and height of a cell.
+     * @return The width and height of the image.
+     */
+    private static Vector2 imageDimensions(int colsNum, int visibleRowsNum, Vector2 cellDimensions) {
+        return new Vector2(Math.max(1, (int) Math.ceil(colsNum * cellDimensions.x())),
+                Math.max(1, (int) Math.ceil(visibleRowsNum * cellDimensions.y())));
+    }
+
+    /**
+     * Checks whether the brick of a cell is alive.
+     *
+     * @param index The cell index.
+     * @return true if the brick is alive, false otherwise.
+     */
+    public boolean isAlive(int index) {
+        return (aliveBits[index / Long.SIZE] & (1L << index)) != 0;
+    }
+
+    /**
+     * Checks whether the brick of a cell is awake, meaning alive and reachable by a ball.
+     *
+     * @param index The cell index.
+     * @return true if the brick is active, false otherwise.
+     */
+    public boolean isActive(int index) {
+        return (activeBits[index / Long.SIZE] & (1L << index)) != 0;
+    }
+
+    /**
+     * Removes the brick of a cell. The bricks around it are woken separately, by wakeAround().
+     *
+     * @param index The cell index.
+     * @return true if the brick was alive, false otherwise.
+     */
+    public boolean remove(int index) {
+        if (index < 0 || index >= cellsNum || !isAlive(index)) {
+            return false;
+        }
+        aliveBits[index / Long.SIZE] &= ~(1L << index);
+        if (isActive(index)) {
+            activeBits[index / Long.SIZE] &= ~(1L << index);
+            activeNum--;
+        }
+        rowAliveNums[index / colsNum]--;
+        markDirty(rowOfSlot(index / colsNum), index % colsNum);
+        return true;
+    }
+
+    /**
+     * Gets the slot row holding a row of the field.
+     *
+     * @param row The row, counted from the top of the field.
+     * @return The slot row of its cells' indices.
+     */
+    private int slotOfRow(int row) {
+        int slotRow = row + topSlotRow;
+        return slotRow < rowsNum ? slotRow : slotRow - rowsNum;
+    }
+
+    /**
+     * Gets the row of the field held by a slot row.
+     *
+     * @param slotRow The slot row of a cell index.
+     * @return The row, counted from the top of the field.
+     */
+    private int rowOfSlot(int slotRow) {
+        int row = slotRow - topSlotRow;
+        return row >= 0 ? row : row + rowsNum;
+    }
+
+    /**
+     * Checks whether every brick of the bottom row was removed.
+     *
+     * @return true if the bottom row is empty, false otherwise.
+     */
+    public boolean isBottomRowCleared() {
+        return rowAliveNums[slotOfRow(rowsNum - 1)] == 0;
+    }
+
+    /**
+     * Recycles the cleared bottom row as a new top row of bricks, moving every other row one row down.
+     * The new bricks sleep unless a ball in an empty cell could reach them, and the field image is
+     * redrawn.
+     *
+     * @param rowCodes The strategy codes of the new row, one per column; they are copied.
+     */
+    public void recycleBottomRow(byte[] rowCodes) {
+        int slotRow = slotOfRow(rowsNum - 1);
+        if (rowAliveNums[slotRow] != 0) {
+            throw new IllegalStateException("The bottom row still has " + rowAliveNums[slotRow] + " bricks");
+        }
+        topSlotRow = slotRow;
+        int firstIndex = slotRow * colsNum;
+        strategyCodes.put(firstIndex, rowCodes, 0, colsNum);
+        if (damages != null) {
+            Arrays.fill(damages, firstIndex, firstIndex + colsNum, (byte) 0);
+        }
+        for (int index = firstIndex; index < firstIndex + colsNum; index++) {
+            aliveBits[index / Long.SIZE] |= 1L << index;
+        }
+        rowAliveNums[slotRow] = colsNum;
+        int toRow = Math.min(reachRowsNum, rowsNum - 1);
+        for (int row = 1; row <= toRow; row++) {
+            for (int col = 0; col < colsNum; col++) {
+                if (!isAlive(slotOfRow(row) * colsNum + col)) {
+                    wake(row, col - reachColsNum, col + reachColsNum);
+                }
+            }
+        }
+        wake(rowsNum, 0, colsNum - 1);
+        isImageDirty = true;
+        dirtyFirstRow = 0;
+        dirtyLastRow = visibleRowsNum - 1;
+        dirtyFirstCol = 0;
+        dirtyLastCol = colsNum - 1;
+    }
+
+    /**
+     * Grows the dirty rectangle of the field image to contain a cell.
+     *
+     * @param row The row of the cell.
+     * @param col The column of the cell.
+     */
+    private void markDirty(int row, int col) {
+        if (row >= visibleRowsNum) {
+            return;
+        }
+        if (!isImageDirty) {
+            dirtyFirstRow = row;
+            dirtyLastRow = row;
+            dirtyFirstCol = col;
+            dirtyLastCol = col;
+            isImageDirty = true;
+            return;
+        }
+        dirtyFirstRow = Math.min(dirtyFirstRow, row);
+        dirtyLastRow = Math.max(dirtyLastRow, row);
+        dirtyFirstCol = Math.min(dirtyFirstCol, col);
+        dirtyLastCol = Math.max(dirtyLastCol, col);
+    }
+
+    /**
+     * Wakes the sleeping bricks that a ball in an emptied cell could reach.
+     *
+     * @param index The index of the emptied cell.
+     */
+    public void wakeAround(int index) {
+        int col = index % colsNum;
+        wake(rowOfSlot(index / colsNum), col - reachColsNum, col + reachColsNum);
+    }
+
+    /**
+     * Wakes the alive bricks within the reach of a ball in an empty row span.
+     *
+     * @param emptyRow The row of the empty span; rowsNum stands for the open space below the field.
+     * @param firstCol The first column of the span.
+     * @param lastCol  The last column of the span.
+     */
+    private void wake(int emptyRow, int firstCol, int lastCol) {
+        int fromRow = Math.max(0, emptyRow - reachRowsNum);
+        int toRow = Math.min(rowsNum - 1, emptyRow + reachRowsNum);
+        int fromCol = Math.max(0, firstCol);
+        int toCol = Math.min(colsNum - 1, lastCol);
+        for (int row = fromRow; row <= toRow; row++) {
+            int firstIndex = slotOfRow(row) * colsNum;
+            for (int col = fromCol; col <= toCol; col++) {
+                int index = firstIndex + col;
+                if (isAlive(index) && !isActive(index)) {
+                    activeBits[index / Long.SIZE] |= 1L << index;
+                    activeNum++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the number of awake bricks, i.e. the size of the exposed frontier.
+     *
+     * @return The number of active bricks.
+     */
+    public int getActiveNum() {
+        return activeNum;
+    }
+
+    /**
+     * Checks a ball that moved in the last tick against the bricks along its path. A ball whose
+     * displacement is within its size and a brick's height is only checked where it is; a faster
+     * ball is swept from where it started the tick, and moved back to the first sub-step that hits a
+     * brick. The start is recorded by the ball rather than rebuilt from its velocity, which the
+     * engine may already have flipped by bouncing it off a wall or paddle.
+     *
+     * @param ball The ball (main ball or puck) to check.
+     */
+    public void collide(Ball ball) {
+        Vector2 ballTopLeft = ball.getTopLeftCorner();
+        Vector2 ballDimensions = ball.getDimensions();
+        Vector2 startTopLeft = ball.getTickStartTopLeft();
+        float moveX = ballTopLeft.x() - startTopLeft.x();
+        float moveY = ballTopLeft.y() - startTopLeft.y();
+        float maxStep = Math.min(Math.min(ballDimensions.x(), ballDimensions.y()), brickHeight);
+        float distance = Math.max(Math.abs(moveX), Math.abs(moveY));
+        if (distance <= maxStep) {
+            collideAt(ball, ballTopLeft.x(), ballTopLeft.y(), ballDimensions);
+            return;
+        }
+        int stepsNum = (int) Math.ceil(distance / maxStep);
+        float startLeft = startTopLeft.x();
+        float startTop = startTopLeft.y();
+        for (int step = 1; step <= stepsNum; step++) {
+            float ballLeft = startLeft + moveX * step / stepsNum;
+            float ballTop = startTop + moveY * step / stepsNum;
+            if (ballTop > top + rowsNum * cellHeight || ballTop + ballDimensions.y() < top) {
+                continue;
+            }
+            if (collideAt(ball, ballLeft, ballTop, ballDimensions)) {
+                if (step < stepsNum) {
+                    ball.setTopLeftCorner(new Vector2(ballLeft, ballTop));
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Checks a ball at a position against the bricks in the cells it overlaps there. The ball
+     * bounces once off the first brick it moves into, and every brick it overlaps is hit. A brick
+     * the ball already overlapped at the start of the tick is in the same contact, and is not
+     * damaged again.
+     *
+     * @param ball           The ball (main ball or puck) to check.
+     * @param ballLeft       The x coordinate of the ball's left edge.
+     * @param ballTop        The y coordinate of the ball's top edge.
+     * @param ballDimensions The width and height of the ball.
+     * @return true if the ball overlaps any active brick, false otherwise.
+     */
+    private boolean collideAt(Ball ball, float ballLeft, float ballTop, Vector2 ballDimensions) {
+        float ballRight = ballLeft + ballDimensions.x();
+        float ballBottom = ballTop + ballDimensions.y();
+        int firstCol = Math.max(0, (int) Math.floor((ballLeft - left) / cellWidth));
+        int lastCol = Math.min(colsNum - 1, (int) Math.floor((ballRight - left) / cellWidth));
+        int firstRow = Math.max(0, (int) Math.floor((ballTop - top) / cellHeight));
+        int lastRow = Math.min(rowsNum - 1, (int) Math.floor((ballBottom - top) / cellHeight));
+        Vector2 startTopLeft = ball.getTickStartTopLeft();
+        boolean hasBounced = false;
+        boolean isHit = false;
+        for (int row = firstRow; row <= lastRow; row++) {
+            int firstIndex = slotOfRow(row) * colsNum;
+            for (int col = firstCol; col <= lastCol; col++) {
+                int index = firstIndex + col;
+                if (!isActive(index)) {
+                    continue;
+                }
+                float brickLeft = left + col * cellWidth;
+                float brickTop = top + row * cellHeight;
+                float overlapX = Math.min(ballRight, brickLeft + brickWidth) - Math.max(ballLeft, brickLeft);
+                float overlapY = Math.min(ballBottom, brickTop + brickHeight) - Math.max(ballTop, brickTop);
+                if (overlapX <= 0 || overlapY <= 0) {
+                    continue;
+                }
+                if (!hasBounced) {
+                    hasBounced = bounceOff(ball, ballLeft + ballDimensions.x() / 2,
+                            ballTop + ballDimensions.y() / 2, brickLeft, brickTop, overlapX < overlapY);
+                }
+                boolean isNewContact = startTopLeft.x() >= brickLeft + brickWidth
+                        || startTopLeft.x() + ballDimensions.x() <= brickLeft
+                        || startTopLeft.y() >= brickTop + brickHeight
+                        || startTopLeft.y() + ballDimensions.y() <= brickTop;
+                hit(index, brickLeft, brickTop, ball, isNewContact);
+                isHit = true;
+            }
+        }
+        return isHit;
+    }
+
+    /**
+     * Applies the collision strategy of a cell's brick for a hit by another game object, once the
+     * brick took all of its hit points. A brick with hit points takes one point per contact, however
+     * many ticks the contact lasts.
+     *
+     * @param index        The cell index.
+     * @param brickLeft    The x coordinate of the brick's left edge.
+     * @param brickTop     The y coordinate of the brick's top edge.
+     * @param other        The GameObject that hit the brick.
+     * @param isNewContact true if the other object did not overlap the brick at the start of the tick.
+     */
+    private void hit(int index, float brickLeft, float brickTop, GameObject other, boolean isNewContact) {
+        if (hitPoints != null) {
+            if (!isNewContact || (++damages[index] & 0xFF) < (hitPoints.get(index) & 0xFF)) {
+                return;
+            }
+        }
+        hitBrick.moveToCell(index, new Vector2(brickLeft, brickTop));
+        collisionStrategyFactory.onCollision(strategyCodes.get(index) & 0xFF, hitBrick, other);
+    }
+
+    /**
+     * Bounces a ball off a brick along the axis of least penetration, if the ball is moving into it.
+     *
+     * @param ball         The ball.
+     * @param ballCenterX  The x coordinate of the ball's center.
+     * @param ballCenterY  The y coordinate of the ball's center.
+     * @param brickLeft    The x coordinate of the brick's left edge.
+     * @param brickTop     The y coordinate of the brick's top edge.
+     * @param isHorizontal true if the ball hit a side of the brick, false if it hit the top or bottom.
+     * @return true if the ball bounced, false otherwise.
+     */
+    private boolean bounceOff(Ball ball, float ballCenterX, float ballCenterY, float brickLeft, float brickTop,
+                              boolean isHorizontal) {
+        Vector2 velocity = ball.getVelocity();
+        Vector2 normal;
+        if (isHorizontal) {
+            normal = ballCenterX < brickLeft + brickWidth / 2 ? Vector2.LEFT : Vector2.RIGHT;
+        }
+        else {
+            normal = ballCenterY < brickTop + brickHeight / 2 ? Vector2.UP : Vector2.DOWN;
+        }
+        if (velocity.x() * normal.x() + velocity.y() * normal.y() >= 0) {
+            return false;
+        }
+        ball.bounce(normal);
+        return true;
+    }
+
+    /**
+     * Redraws the dirty rectangle of the field image once in a frame in which bricks were removed.
+     *
+     * @param deltaTime The time elapsed, in seconds, since the last frame.
+     */
+    @Override
+    public void update(float deltaTime) {
+        super.update(deltaTime);
+        if (isImageDirty && fieldImage != null) {
+            redraw();
+        }
+        isImageDirty = false;
+    }
+
+    /**
+     * Clears the dirty rectangle of the field image and draws the alive bricks in it.
+     */
+    private void redraw() {
+        Graphics2D graphics = fieldImage.createGraphics();
+        int dirtyLeft = Math.round(dirtyFirstCol * cellWidth);
+        int dirtyTop = Math.round(dirtyFirstRow * cellHeight);
+        int dirtyWidth = (int) Math.ceil((dirtyLastCol + 1) * cellWidth) - dirtyLeft;
+        int dirtyHeight = (int) Math.ceil((dirtyLastRow + 1) * cellHeight) - dirtyTop;
+        graphics.clipRect(dirtyLeft, dirtyTop, dirtyWidth, dirtyHeight);
+        graphics.setBackground(TRANSPARENT);
+        graphics.clearRect(dirtyLeft, dirtyTop, dirtyWidth, dirtyHeight);
+        int width = Math.max(1, Math.round(brickWidth));
+        int height = Math.max(1, Math.round(brickHeight));
+        //neighbouring columns are drawn too, clipped, since rounding can spill a brick into the next cell
+        int toCol = Math.min(colsNum - 1, dirtyLastCol + 1);
+        for (int row = dirtyFirstRow; row <= dirtyLastRow; row++) {
+            int firstIndex = slotOfRow(row) * colsNum;
+            for (int col = Math.max(0, dirtyFirstCol - 1); col <= toCol; col++) {
+                if (isAlive(firstIndex + col)) {
+                    graphics.drawImage(brickImage, Math.round(col * cellWidth), Math.round(row * cellHeight),
+                            width, height, null);
+                }
+            }
+        }
+        graphics.dispose();
+    }
+
+    /**
+     * Gets the size, in bytes, of the state written by writeState().
+     *
+     * @return The size of the field's state.
+     */
+    public int getStateSize() {
+        return Integer.BYTES + 2 * aliveBits.length * Long.BYTES + cellsNum + (damages != null ? cellsNum : 0);
+    }
+
+    /**
+     * Writes the state of the field: the ring position, the alive and active bits, the strategy codes
+     * and the damages of the bricks.
+     *
+     * @param buffer The buffer to write to.
+     */
+    public void writeState(ByteBuffer buffer) {
+        buffer.putInt(topSlotRow);
+        for (long word : aliveBits) {
+            buffer.putLong(word);
+        }
+        for (long word : activeBits) {
+            buffer.putLong(word);
+        }
+        for (int i = 0; i < cellsNum; i++) {
+            buffer.put(strategyCodes.get(i));
+        }
+        if (damages != null) {
+            buffer.put(damages);
+        }
+    }
+
+    /**
+     * Reads a state written by writeState() of a field of the same grid, and redraws the whole field.
+     * Strategy codes read from a level file cannot change, so they are only read for random boards.
+     *
+     * @param buffer The buffer to read from.
+     */
+    public void readState(ByteBuffer buffer) {
+        topSlotRow = buffer.getInt();
+        for (int i = 0; i < aliveBits.length; i++) {
+            aliveBits[i] = buffer.getLong();
+        }
+        activeNum = 0;
+        for (int i = 0; i < activeBits.length; i++) {
+            activeBits[i] = buffer.getLong();
+            activeNum += Long.bitCount(activeBits[i]);
+        }
+        if (strategyCodes.isReadOnly()) {
+            buffer.position(buffer.position() + cellsNum);
+        }
+        else {
+            for (int i = 0; i < cellsNum; i++) {
+                strategyCodes.put(i, buffer.get());
+            }
+        }
+        if (damages != null) {
+            buffer.get(damages);
+        }
+        for (int slotRow = 0; slotRow < rowsNum; slotRow++) {
+            int aliveNum = 0;
+            for (int index = slotRow * colsNum; index < (slotRow + 1) * colsNum; index++) {
+                if (isAlive(index)) {
+                    aliveNum++;
+                }
+            }
+            rowAliveNums[slotRow] = aliveNum;
+        }
+        isImageDirty = true;
+        dirtyFirstRow = 0;
+        dirtyLastRow = visibleRowsNum - 1;
+        dirtyFirstCol = 0;
+        dirtyLastCol = colsNum - 1;
+    }
+
+    /**
+     * Gets the number of bytes the field keeps per brick in its arrays.
+     *
+     * @return The bytes of the alive and active bits, strategy codes, hit points, damages and row
+     * counts, divided by the number of bricks.
+     */
+    public double getBytesPerBrick() {
+        long bytes = (long) (aliveBits.length + activeBits.length) * Long.BYTES + cellsNum
+                + (long) rowAliveNums.length * Integer.BYTES;
+        if (hitPoints != null) {
+            bytes += 2L * cellsNum;
+        }
+        return cellsNum == 0 ? 0 : (double) bytes / cellsNum;
+    }
+}
@@ -3,16 +3,19 @@ package bricker.gameobjects;
 import bricker.main.BrickerGameManager;
 import danogl.GameObject;
 import danogl.collisions.Layer;
-import danogl.gui.ImageReader;
+import danogl.gui.rendering.Camera;
 import danogl.gui.rendering.ImageRenderable;
-import danogl.gui.rendering.TextRenderable;
+import danogl.gui.rendering.Renderable;
 import danogl.util.Vector2;
 
 import java.awt.*;
+import java.awt.image.BufferedImage;
 
 /**
  * HeartsManager manages the hearts in the Bricker game.
  * It handles the initialization, display, and interaction of hearts.
+ * The HUD (the colored hearts counter and the heart icons) is a single UI object whose image is
+ * cached, and drawn again only when the number of hearts changes.
  */
 public class HeartsManager {
 
@@ -31,17 +34,22 @@ public class HeartsManager {
      */
     public static final float HEART_WIDTH = 25;
 
+    /**
+     * The gap between the icons of the HUD.
+     */
+    private static final float HUD_GAP = 3;
 
+    private static final Color TRANSPARENT = new Color(0, 0, 0, 0);
 
     private final int maxHeartsNum;
     private int heartsNum;
-    private Heart[] heartsArray;
     private final BrickerGameManager gameManager;
-    private GameObject heartsNumericDisplay;
-    private TextRenderable numericRenderer;
-    private Vector2 topLeftCorner;
     private Vector2 defaultDimensions;
-    private ImageRenderable heartGrapic;
+    private Renderable heartGrapic;
+    //cached HUD
+    private Image heartImage;
+    private BufferedImage hudImage;
+    private int hudRebuildsNum = 0;
 
     /**
      * Constructs a HeartsManager with the specified initial and maximum number of hearts.
@@ -53,7 +61,6 @@ public class HeartsManager {
     public HeartsManager(int initHeartsNum, int maxHeartsNum, BrickerGameManager gameManager) {
         this.maxHeartsNum = maxHeartsNum;
         this.heartsNum = initHeartsNum;
-        heartsArray = new Heart[maxHeartsNum];
         this.gameManager = gameManager;
     }
 
@@ -61,59 +68,85 @@ public class HeartsManager {
      * Initializes the hearts and their display.
      *
      * @param topLeftCorner The top-left corner position for the hearts display.
-     * @param imageReader   The image reader for loading heart graphics.
+     * @param heartGrapic   The heart graphic of dropping hearts, or null when running headless
+     *                      without graphics.
+     * @param heartImage    The heart image drawn in the HUD, or null when running headless without graphics.
      */
-    public void initializedHearts(Vector2 topLeftCorner, ImageReader imageReader){
-        this.topLeftCorner = topLeftCorner;
+    public void initializedHearts(Vector2 topLeftCorner, Renderable heartGrapic, Image heartImage){
+        this.heartGrapic = heartGrapic;
+        this.heartImage = heartImage;
         defaultDimensions = new Vector2(HEART_WIDTH, HEART_WIDTH);
-        initializeNumeric(imageReader);
-        initializeGraphics(imageReader);
+        initializeHud(topLeftCorner);
     }
 
     /**
-     * Initializes the graphics for displaying hearts.
+     * Initializes the HUD object, which renders the cached HUD image and times its rendering in the
+     * UI render phase of the game's frame profiler.
      *
-     * @param imageReader The image reader for loading heart graphics.
-     */
-    private void initializeGraphics(ImageReader imageReader) {
-        heartGrapic = imageReader.readImage(HEART_PATH, true);
-        for (int i = 0; i < maxHeartsNum; i++) {
-            Vector2 heartTopLeftCorner = new Vector2(topLeftCorner.x()+(i+1)*(HEART_WIDTH+3),
-                    topLeftCorner.y());
-            heartsArray[i] = new Heart(heartTopLeftCorner,defaultDimensions, heartGrapic);
-        }
-        for (int i = 0; i < heartsNum; i++) {
-            gameManager.addObject(heartsArray[i], Layer.UI);
+     * @param topLeftCorner The top-left corner position for the hearts display.
+     */
+    private void initializeHud(Vector2 topLeftCorner) {
+        Vector2 hudDimensions = new Vector2((maxHeartsNum + 1) * (HEART_WIDTH + HUD_GAP), HEART_WIDTH);
+        Renderable hudRenderable = null;
+        if (heartImage != null) {
+            hudImage = new BufferedImage(Math.round(hudDimensions.x()), Math.round(hudDimensions.y()),
+                    BufferedImage.TYPE_INT_ARGB);
+            hudRenderable = new ImageRenderable(hudImage);
         }
+        GameObject hud = new GameObject(topLeftCorner, hudDimensions, hudRenderable) {
+            @Override
+            public void render(Graphics2D g, Camera camera) {
+                long start = System.nanoTime();
+                super.render(g, camera);
+                gameManager.getFrameProfiler().getHistogram(BrickerGameManager.UI_RENDER_PHASE)
+                        .record(System.nanoTime() - start);
+            }
+        };
+        gameManager.addObject(hud, Layer.UI);
+        rebuildHud();
     }
 
     /**
-     * Initializes the numeric display for showing the number of hearts.
-     *
-     * @param imageReader The image reader for loading numeric graphics.
+     * Draws the HUD image again: the number of hearts, colored by how many are left, followed by
+     * an icon per heart.
      */
-    private void initializeNumeric(ImageReader imageReader){
-        numericRenderer = new TextRenderable("", null, false, true);
-        heartsNumericDisplay = new GameObject(topLeftCorner, defaultDimensions, numericRenderer);
-        setHeartsNumColor();
-        gameManager.addObject(heartsNumericDisplay, Layer.UI);
+    private void rebuildHud() {
+        hudRebuildsNum++;
+        if (hudImage == null) {
+            return;
+        }
+        Graphics2D graphics = hudImage.createGraphics();
+        graphics.setBackground(TRANSPARENT);
+        graphics.clearRect(0, 0, hudImage.getWidth(), hudImage.getHeight());
+        graphics.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        graphics.setFont(new Font(Font.SANS_SERIF, Font.BOLD, Math.round(HEART_WIDTH)));
+        graphics.setColor(heartsNumColor());
+        String heartsNumText = String.valueOf(heartsNum);
+        FontMetrics metrics = graphics.getFontMetrics();
+        graphics.drawString(heartsNumText, (Math.round(HEART_WIDTH) - metrics.stringWidth(heartsNumText)) / 2,
+                (Math.round(HEART_WIDTH) - metrics.getHeight()) / 2 + metrics.getAscent());
+        int iconSize = Math.round(HEART_WIDTH);
+        for (int i = 0; i < heartsNum; i++) {
+            graphics.drawImage(heartImage, Math.round((i + 1) * (HEART_WIDTH + HUD_GAP)), 0,
+                    iconSize, iconSize, null);
+        }
+        graphics.dispose();
     }
 
     /**
-     * Sets the color of the numeric display based on the number of hearts.
+     * Gets the color of the numeric display based on the number of hearts.
+     *
+     * @return red for one heart, yellow for two, green otherwise
      */
-    private void setHeartsNumColor() {
+    private Color heartsNumColor() {
         switch (heartsNum){
             case 1:
-                numericRenderer.setColor(Color.red);
-                break;
+                return Color.red;
             case 2:
-                numericRenderer.setColor(Color.yellow);
-                break;
+                return Color.yellow;
             default:
-                numericRenderer.setColor(Color.green);
+                return Color.green;
         }
-        numericRenderer.setString(String.valueOf(heartsNum));
     }
 
     /**
@@ -121,8 +154,17 @@ public class HeartsManager {
      */
     public void decreaseHearts() {
         heartsNum--;
-        gameManager.removeObject(heartsArray[heartsNum], Layer.UI);
-        setHeartsNumColor();
+        rebuildHud();
+    }
+
+    /**
+     * Sets the number of hearts, as when restoring a saved game, and updates the display.
+     *
+     * @param heartsNum The number of hearts, at most the maximum number of hearts.
+     */
+    public void setHeartsNum(int heartsNum) {
+        this.heartsNum = Math.min(heartsNum, maxHeartsNum);
+        rebuildHud();
     }
 
     /**
@@ -135,14 +177,35 @@ public class HeartsManager {
     }
 
     /**
-     * Creates a dropping heart at the specified location.
+     * Gets the current number of hearts.
+     *
+     * @return The number of hearts.
+     */
+    public int getHeartsNum() {
+        return heartsNum;
+    }
+
+    /**
+     * Creates a dropping heart at the specified location, if the game's entity budget allows it.
      *
      * @param extraLifeLocation The location to create the dropping heart.
      */
     public void heartDroping(Vector2 extraLifeLocation) {
+        if (gameManager.admitDroppingHeart(extraLifeLocation)) {
+            placeDroppingHeart(extraLifeLocation);
+        }
+    }
+
+    /**
+     * Creates a dropping heart centered at the specified location, outside of the entity budget, as
+     * when restoring a saved game.
+     *
+     * @param center The center of the dropping heart.
+     */
+    public void placeDroppingHeart(Vector2 center) {
         Heart heart = new Heart(Vector2.ZERO, defaultDimensions, heartGrapic);
         heart.setVelocity(Vector2.DOWN.mult(HEART_SPEED));
-        heart.setCenter(extraLifeLocation);
+        heart.setCenter(center);
         heart.setTag(BrickerGameManager.DROP_HEART_TAG);
         gameManager.addObject(heart, Layer.DEFAULT);
     }
@@ -163,8 +226,17 @@ public class HeartsManager {
     private void increaseHearts() {
         if (heartsNum < maxHeartsNum){
             heartsNum++;
-            gameManager.addObject(heartsArray[heartsNum-1], Layer.UI);
-            setHeartsNumColor();
+            rebuildHud();
         }
     }
+
+    /**
+     * Gets the number of times the HUD image was drawn.
+     *
+     * @return The number of HUD rebuilds, counting the first drawing.
+     */
+    public int getHudRebuildsNum() {
+        return hudRebuildsNum;
+    }
+
 }
@@ -14,6 +14,8 @@ import java.awt.event.KeyEvent;
 public class Paddle extends GameObject {
 
     private static final float MOVEMENT_SPEED = 300;
+    private static final Vector2 LEFT_VELOCITY = Vector2.LEFT.mult(MOVEMENT_SPEED);
+    private static final Vector2 RIGHT_VELOCITY = Vector2.RIGHT.mult(MOVEMENT_SPEED);
     private final UserInputListener inputListener;
     private float rightLimit;
     private float leftLimit = 0;
@@ -47,14 +49,44 @@ public class Paddle extends GameObject {
     @Override
     public void update(float deltaTime) {
         super.update(deltaTime);
-        Vector2 movementDir = Vector2.ZERO;
-        if (inputListener.isKeyPressed(KeyEvent.VK_LEFT) && getTopLeftCorner().x() > leftLimit) {
-            movementDir = movementDir.add(Vector2.LEFT);
+        float left = getTopLeftCorner().x();
+        setMovementDir(movementDir(left > leftLimit, left+getDimensions().x() < rightLimit));
+    }
+
+    /**
+     * Chooses the direction to move in this frame, from the arrow keys.
+     *
+     * @param canMoveLeft  true if the paddle is not at its left limit.
+     * @param canMoveRight true if the paddle is not at its right limit.
+     * @return -1 to move left, 1 to move right, 0 to stop.
+     */
+    protected int movementDir(boolean canMoveLeft, boolean canMoveRight) {
+        int movementDir = 0;
+        if (inputListener.isKeyPressed(KeyEvent.VK_LEFT) && canMoveLeft) {
+            movementDir--;
+        }
+        if (inputListener.isKeyPressed(KeyEvent.VK_RIGHT) && canMoveRight){
+            movementDir++;
+        }
+        return movementDir;
+    }
+
+    /**
+     * Sets the paddle's velocity from a movement direction, using the shared velocity
+     * constants so no vector is allocated per frame.
+     *
+     * @param movementDir -1 to move left, 1 to move right, 0 to stop.
+     */
+    protected void setMovementDir(int movementDir) {
+        Vector2 velocity = Vector2.ZERO;
+        if (movementDir < 0) {
+            velocity = LEFT_VELOCITY;
+        }
+        else if (movementDir > 0) {
+            velocity = RIGHT_VELOCITY;
         }
-        if (inputListener.isKeyPressed(KeyEvent.VK_RIGHT) &&
-                getTopLeftCorner().x()+getDimensions().x() < rightLimit){
-            movementDir = movementDir.add(Vector2.RIGHT);
+        if (getVelocity() != velocity) {
+            setVelocity(velocity);
         }
-        setVelocity(movementDir.mult(MOVEMENT_SPEED));
     }
 }
@@ -0,0 +1,132 @@
+package bricker.gameobjects;
+
+import danogl.gui.Sound;
+import danogl.gui.rendering.Renderable;
+import danogl.util.Vector2;
+
+import java.util.ArrayDeque;
+
+/**
+ * PuckPool is a bounded, pre-warmed pool of puck balls.
+ * Pucks that leave the game are returned to the pool and handed out again on the next
+ * extra-ball hit, instead of being thrown away and allocated anew.
+ */
+public class PuckPool {
+
+    private final int capacity;
+    private final Vector2 puckDimensions;
+    private final Renderable puckImage;
+    private final Sound collisionSound;
+    private final String puckTag;
+    private final ArrayDeque<Ball> freePucks;
+    private int inUseNum = 0;
+    private int highWaterMark = 0;
+    private int hits = 0;
+    private int misses = 0;
+
+    /**
+     * Constructs a PuckPool and pre-allocates its first pucks.
+     *
+     * @param capacity       The maximum number of free pucks kept in the pool.
+     * @param prewarmNum     The number of pucks allocated up front.
+     * @param puckDimensions Width and height of a puck.
+     * @param puckImage      The renderable of a puck. Can be null.
+     * @param collisionSound The sound a puck plays upon collision. Can be null.
+     * @param puckTag        The tag given to every puck.
+     */
+    public PuckPool(int capacity, int prewarmNum, Vector2 puckDimensions, Renderable puckImage,
+                    Sound collisionSound, String puckTag) {
+        this.capacity = capacity;
+        this.puckDimensions = puckDimensions;
+        this.puckImage = puckImage;
+        this.collisionSound = collisionSound;
+        this.puckTag = puckTag;
+        this.freePucks = new ArrayDeque<>(capacity);
+        for (int i = 0; i < Math.min(prewarmNum, capacity); i++) {
+            freePucks.push(createPuck());
+        }
+    }
+
+    /**
+     * Creates a new puck.
+     *
+     * @return The new puck.
+     */
+    private Ball createPuck() {
+        Ball puck = new Ball(Vector2.ZERO, puckDimensions, puckImage, collisionSound);
+        puck.setTag(puckTag);
+        return puck;
+    }
+
+    /**
+     * Takes a puck from the pool, or allocates a new one if the pool is empty.
+     * The puck has no velocity, a zero collision counter and the puck tag.
+     *
+     * @return A puck ready to be placed in the game.
+     */
+    public Ball acquire() {
+        Ball puck = freePucks.poll();
+        if (puck == null) {
+            misses++;
+            puck = createPuck();
+        }
+        else {
+            hits++;
+        }
+        inUseNum++;
+        highWaterMark = Math.max(highWaterMark, inUseNum);
+        return puck;
+    }
+
+    /**
+     * Returns a puck that left the game to the pool. The puck is reset, and dropped
+     * if the pool is already full.
+     *
+     * @param puck The puck to return.
+     */
+    public void release(Ball puck) {
+        inUseNum--;
+        if (freePucks.size() >= capacity) {
+            return;
+        }
+        puck.reset();
+        puck.setTag(puckTag);
+        freePucks.push(puck);
+    }
+
+    /**
+     * Gets the number of acquisitions served from the pool.
+     *
+     * @return The number of pool hits.
+     */
+    public int getHits() {
+        return hits;
+    }
+
+    /**
+     * Gets the number of acquisitions that had to allocate a new puck.
+     *
+     * @return The number of pool misses.
+     */
+    public int getMisses() {
+        return misses;
+    }
+
+    /**
+     * Gets the largest number of pucks that were in the game at the same time.
+     *
+     * @return The high-water mark of pucks in use.
+     */
+    public int getHighWaterMark() {
+        return highWaterMark;
+    }
+
+    /**
+     * Gets the number of pucks currently in the game.
+     *
+     * @return The number of pucks in use.
+     */
+    public int getInUseNum() {
+        return inUseNum;
+    }
+}
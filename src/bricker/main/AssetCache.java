@@ -0,0 +1,153 @@
+package bricker.main;
+
+import bricker.gameobjects.HeartsManager;
+import danogl.gui.ImageReader;
+import danogl.gui.Sound;
+import danogl.gui.SoundReader;
+import danogl.gui.rendering.Renderable;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * AssetCache is the process-wide cache of the images and sounds of the Bricker game.
+ * Every asset is decoded once per process, keyed by its path and options, and the small
+ * sprites are served from a single SpriteAtlas. Hit and miss counters show whether
+ * anything is decoded on the hot path.
+ */
+public class AssetCache {
+
+    /**
+     * The small sprites packed into the atlas, with their transparency option as used by the game.
+     */
+    private static final String[] ATLAS_SPRITES = {BrickerGameManager.BALL_PATH, BrickerGameManager.PUCK_PATH,
+            BrickerGameManager.PADDLE_PATH, BrickerGameManager.BRICK_PATH, HeartsManager.HEART_PATH};
+    private static final boolean[] ATLAS_TRANSPARENCY = {true, true, false, false, true};
+
+    private static final AssetCache SHARED = new AssetCache();
+
+    private final Map<String, Renderable> images = new HashMap<>();
+    private final Map<String, Sound> sounds = new HashMap<>();
+    private SpriteAtlas atlas;
+    private boolean isAtlasLoaded = false;
+    private ImageReader imageReader;
+    private SoundReader soundReader;
+    private long hits = 0;
+    private long misses = 0;
+
+    private AssetCache() {
+    }
+
+    /**
+     * Gets the asset cache shared by the whole process.
+     *
+     * @return the shared asset cache
+     */
+    public static AssetCache shared() {
+        return SHARED;
+    }
+
+    /**
+     * Sets the readers used to decode the assets that are not cached yet.
+     *
+     * @param imageReader the image reader of the game window
+     * @param soundReader the sound reader of the game window
+     */
+    public synchronized void setReaders(ImageReader imageReader, SoundReader soundReader) {
+        this.imageReader = imageReader;
+        this.soundReader = soundReader;
+    }
+
+    /**
+     * Reads an image, decoding it only on the first request for the path and options.
+     *
+     * @param imagePath                 the path of the image file
+     * @param isTopLeftPixelTransparent whether the top-left pixel color should be transparent
+     * @return the image renderable
+     */
+    public synchronized Renderable readImage(String imagePath, boolean isTopLeftPixelTransparent) {
+        String key = SpriteAtlas.key(imagePath, isTopLeftPixelTransparent);
+        Renderable image = images.get(key);
+        if (image != null) {
+            hits++;
+            return image;
+        }
+        misses++;
+        image = findInAtlas(imagePath, isTopLeftPixelTransparent);
+        if (image == null) {
+            image = imageReader.readImage(imagePath, isTopLeftPixelTransparent);
+        }
+        images.put(key, image);
+        return image;
+    }
+
+    /**
+     * Reads the raw image of a sprite of the atlas, for code that draws sprites itself.
+     *
+     * @param imagePath                 the path of the image file
+     * @param isTopLeftPixelTransparent whether the top-left pixel color should be transparent
+     * @return the atlas region of the sprite, or null if it is not in the atlas
+     */
+    public synchronized BufferedImage readAtlasImage(String imagePath, boolean isTopLeftPixelTransparent) {
+        findInAtlas(imagePath, isTopLeftPixelTransparent);
+        return atlas == null ? null : atlas.findImage(imagePath, isTopLeftPixelTransparent);
+    }
+
+    /**
+     * Finds an image in the sprite atlas, building the atlas on first use.
+     *
+     * @param imagePath                 the path of the image file
+     * @param isTopLeftPixelTransparent whether the top-left pixel color should be transparent
+     * @return the atlas sprite, or null if the image is not in the atlas or the atlas is unavailable
+     */
+    private Renderable findInAtlas(String imagePath, boolean isTopLeftPixelTransparent) {
+        if (!isAtlasLoaded) {
+            isAtlasLoaded = true;
+            try {
+                atlas = new SpriteAtlas(ATLAS_SPRITES, ATLAS_TRANSPARENCY);
+            }
+            catch (IOException e) {
+                atlas = null;
+            }
+        }
+        return atlas == null ? null : atlas.find(imagePath, isTopLeftPixelTransparent);
+    }
+
+    /**
+     * Reads a sound, decoding it only on the first request for the path.
+     *
+     * @param soundPath the path of the sound file
+     * @return the sound
+     */
+    public synchronized Sound readSound(String soundPath) {
+        Sound sound = sounds.get(soundPath);
+        if (sound != null) {
+            hits++;
+            return sound;
+        }
+        misses++;
+        sound = soundReader.readSound(soundPath);
+        sounds.put(soundPath, sound);
+        return sound;
+    }
+
+    /**
+     * Gets the number of requests served from the cache.
+     *
+     * @return the number of cache hits
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Gets the number of requests that decoded an asset.
+     *
+     * @return the number of cache misses
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+}
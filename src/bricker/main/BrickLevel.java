@@ -0,0 +1,218 @@
+package bricker.main;
+
+import bricker.brick_strategies.CollisionStrategyFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+/**
+ * BrickLevel is a board of bricks stored in a binary level file. The file is memory-mapped and the
+ * strategy codes and hit points are read from the mapping in place, so opening a level costs the
+ * same whatever its size; pages are only read from disk as the game touches them.
+ *
+ * <p>The file format, big-endian: the int MAGIC, the short VERSION, the short flags, the int number
+ * of rows and the int number of columns, followed by one strategy code byte per cell in row-major
+ * order, and, if the FLAG_HIT_POINTS flag is set, one hit points byte per cell in the same order
+ * (0 is read as 1). Every byte is a valid strategy code, see CollisionStrategyFactory.</p>
+ */
+public class BrickLevel {
+
+    /**
+     * The first int of a level file ("BRKL").
+     */
+    public static final int MAGIC = 0x42524B4C;
+
+    /**
+     * The version of the level format.
+     */
+    public static final short VERSION = 1;
+
+    /**
+     * The flag of a level file that holds hit points per cell.
+     */
+    public static final short FLAG_HIT_POINTS = 0x1;
+
+    /**
+     * The size, in bytes, of the header of a level file.
+     */
+    private static final int HEADER_SIZE = 16;
+
+    /**
+     * The strategy roll range of the random levels written by main, the game's default.
+     */
+    private static final int STRATEGY_ROLL_RANGE = 10;
+
+    private final String levelPath;
+    private final int rowsNum;
+    private final int colsNum;
+    private final ByteBuffer strategyCodes;
+    private final ByteBuffer hitPoints;
+
+    /**
+     * Constructs a BrickLevel over the mapped cells of a level file.
+     *
+     * @param levelPath     the path of the level file
+     * @param rowsNum       the number of rows
+     * @param colsNum       the number of columns
+     * @param strategyCodes the strategy codes of the cells
+     * @param hitPoints     the hit points of the cells, or null if the level has none
+     */
+    private BrickLevel(String levelPath, int rowsNum, int colsNum, ByteBuffer strategyCodes,
+                       ByteBuffer hitPoints) {
+        this.levelPath = levelPath;
+        this.rowsNum = rowsNum;
+        this.colsNum = colsNum;
+        this.strategyCodes = strategyCodes;
+        this.hitPoints = hitPoints;
+    }
+
+    /**
+     * Opens a level file by memory-mapping it, and checks its header and size.
+     *
+     * @param levelPath the path of the level file
+     * @return the level
+     * @throws IOException if the file cannot be read or is not a valid level
+     */
+    public static BrickLevel open(String levelPath) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(levelPath), StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_SIZE || fileSize > Integer.MAX_VALUE) {
+                throw new IOException("Not a supported level: " + levelPath);
+            }
+            MappedByteBuffer mapping = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+            if (mapping.getInt(0) != MAGIC || mapping.getShort(4) != VERSION) {
+                throw new IOException("Not a supported level: " + levelPath);
+            }
+            short flags = mapping.getShort(6);
+            int rowsNum = mapping.getInt(8);
+            int colsNum = mapping.getInt(12);
+            if (rowsNum <= 0 || colsNum <= 0) {
+                throw new IOException("Level " + levelPath + " has an empty grid of " + rowsNum + "x" + colsNum);
+            }
+            boolean hasHitPoints = (flags & FLAG_HIT_POINTS) != 0;
+            long cellsNum = (long) rowsNum * colsNum;
+            long expectedSize = HEADER_SIZE + (hasHitPoints ? 2 * cellsNum : cellsNum);
+            if (fileSize != expectedSize) {
+                throw new IOException("Level " + levelPath + " is " + fileSize + " bytes long, expected "
+                        + expectedSize);
+            }
+            ByteBuffer strategyCodes = mapping.slice(HEADER_SIZE, (int) cellsNum);
+            ByteBuffer hitPoints = hasHitPoints ? mapping.slice(HEADER_SIZE + (int) cellsNum, (int) cellsNum) : null;
+            return new BrickLevel(levelPath, rowsNum, colsNum, strategyCodes, hitPoints);
+        }
+    }
+
+    /**
+     * Checks that the level fits a brick field of a given width.
+     *
+     * @param fieldWidth    the width, in pixels, of the brick field
+     * @param minBrickWidth the smallest width, in pixels, of a brick
+     * @throws IOException if the columns of the level are too narrow for the field
+     */
+    public void validate(float fieldWidth, float minBrickWidth) throws IOException {
+        if (fieldWidth / colsNum < minBrickWidth) {
+            throw new IOException("Level " + levelPath + " has " + colsNum + " columns, but a field of "
+                    + fieldWidth + " pixels fits at most " + (int) (fieldWidth / minBrickWidth));
+        }
+    }
+
+    /**
+     * Writes a level file.
+     *
+     * @param levelPath     the path of the level file
+     * @param colsNum       the number of columns
+     * @param strategyCodes the strategy codes of the cells, in row-major order
+     * @param hitPoints     the hit points of the cells, or null for a level without hit points
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(String levelPath, int colsNum, byte[] strategyCodes, byte[] hitPoints)
+            throws IOException {
+        if (colsNum <= 0 || strategyCodes.length % colsNum != 0
+                || (hitPoints != null && hitPoints.length != strategyCodes.length)) {
+            throw new IllegalArgumentException("The cells do not form a grid of " + colsNum + " columns");
+        }
+        try (DataOutputStream output = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(levelPath)))) {
+            output.writeInt(MAGIC);
+            output.writeShort(VERSION);
+            output.writeShort(hitPoints != null ? FLAG_HIT_POINTS : 0);
+            output.writeInt(strategyCodes.length / colsNum);
+            output.writeInt(colsNum);
+            output.write(strategyCodes);
+            if (hitPoints != null) {
+                output.write(hitPoints);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of rows.
+     *
+     * @return the number of rows
+     */
+    public int getRowsNum() {
+        return rowsNum;
+    }
+
+    /**
+     * Gets the number of columns.
+     *
+     * @return the number of columns
+     */
+    public int getColsNum() {
+        return colsNum;
+    }
+
+    /**
+     * Gets the strategy codes of the cells, in row-major order, read from the mapped file.
+     *
+     * @return a read-only view of the strategy codes
+     */
+    public ByteBuffer getStrategyCodes() {
+        return strategyCodes;
+    }
+
+    /**
+     * Gets the hit points of the cells, in row-major order, read from the mapped file.
+     *
+     * @return a read-only view of the hit points, or null if the level has none
+     */
+    public ByteBuffer getHitPoints() {
+        return hitPoints;
+    }
+
+    /**
+     * Writes a random level file, rolled like the boards of the game.
+     *
+     * @param args the level path, the number of rows and columns, and optionally the maximum hit
+     *             points of a brick and the seed
+     * @throws IOException if the file cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.err.println("Usage: [level path] [rows] [columns] [max hit points] [seed]");
+            return;
+        }
+        int rowsNum = Integer.parseInt(args[1]);
+        int colsNum = Integer.parseInt(args[2]);
+        int maxHitPoints = args.length > 3 ? Integer.parseInt(args[3]) : 1;
+        Random random = args.length > 4 ? new Random(Long.parseLong(args[4])) : new Random();
+        byte[] strategyCodes = new byte[rowsNum * colsNum];
+        byte[] hitPoints = maxHitPoints > 1 ? new byte[strategyCodes.length] : null;
+        for (int i = 0; i < strategyCodes.length; i++) {
+            strategyCodes[i] = (byte) CollisionStrategyFactory.rollStrategyCode(random, STRATEGY_ROLL_RANGE);
+            if (hitPoints != null) {
+                hitPoints[i] = (byte) (1 + random.nextInt(Math.min(maxHitPoints, 255)));
+            }
+        }
+        write(args[0], colsNum, strategyCodes, hitPoints);
+    }
+}
@@ -0,0 +1,116 @@
+package bricker.main;
+
+import bricker.brick_strategies.CollisionStrategyFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * BrickRowStreamer rolls the rows of bricks of endless mode ahead of time, on a background thread,
+ * so that recycling a row in a frame only copies a ready row. A fixed number of row arrays circulates
+ * between the streamer and the game, so memory stays bounded however long the session runs. Rows
+ * are rolled from a single random generator, in order, so a session is reproducible, and the
+ * generator state after the last taken row is kept, so a saved session can resume the same rows.
+ */
+public class BrickRowStreamer {
+
+    private final BlockingQueue<byte[]> readyRows;
+    private final BlockingQueue<byte[]> freeRows;
+    //the generator state after rolling each row, by row number modulo the number of rows ahead
+    private final long[] statesAfterRows;
+    private int rolledRowsNum = 0;
+    private int takenRowsNum = 0;
+    private final SnapshotRandom random;
+    private final int strategyRollRange;
+    private final Thread rollingThread;
+    private long nextRowState;
+
+    /**
+     * Constructs a BrickRowStreamer and starts rolling rows.
+     *
+     * @param colsNum           the number of bricks in a row
+     * @param random            the random generator of the rows, used only by the streamer from now on
+     * @param strategyRollRange the strategy roll range of the bricks
+     * @param aheadRowsNum      the number of rows rolled ahead
+     */
+    public BrickRowStreamer(int colsNum, SnapshotRandom random, int strategyRollRange, int aheadRowsNum) {
+        this.readyRows = new ArrayBlockingQueue<>(aheadRowsNum);
+        this.statesAfterRows = new long[aheadRowsNum];
+        this.freeRows = new ArrayBlockingQueue<>(aheadRowsNum);
+        for (int i = 0; i < aheadRowsNum; i++) {
+            freeRows.add(new byte[colsNum]);
+        }
+        this.random = random;
+        this.nextRowState = random.getState();
+        this.strategyRollRange = strategyRollRange;
+        this.rollingThread = new Thread(this::rollRows, "brick-row-streamer");
+        rollingThread.setDaemon(true);
+        rollingThread.start();
+    }
+
+    /**
+     * Rolls rows into free arrays until the streamer is closed. Rows are taken in the order they are
+     * rolled, and at most aheadRowsNum rows are rolled and not yet taken, so the state after a row is
+     * kept in a primitive ring slot that is not reused before the row is taken.
+     */
+    private void rollRows() {
+        try {
+            while (true) {
+                byte[] row = freeRows.take();
+                for (int i = 0; i < row.length; i++) {
+                    row[i] = (byte) CollisionStrategyFactory.rollStrategyCode(random, strategyRollRange);
+                }
+                statesAfterRows[rolledRowsNum % statesAfterRows.length] = random.getState();
+                rolledRowsNum++;
+                readyRows.put(row);
+            }
+        }
+        catch (InterruptedException e) {
+            //closed
+        }
+    }
+
+    /**
+     * Takes the next rolled row. It is normally ready; if the background thread fell behind, this
+     * waits for it, so the order of the rows never changes.
+     *
+     * @return the strategy codes of the row, to be handed back through recycle() once copied
+     */
+    public byte[] takeRow() {
+        try {
+            byte[] row = readyRows.take();
+            nextRowState = statesAfterRows[takenRowsNum % statesAfterRows.length];
+            takenRowsNum++;
+            return row;
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a brick row", e);
+        }
+    }
+
+    /**
+     * Hands a taken row back, to be rolled again.
+     *
+     * @param row the row taken by takeRow()
+     */
+    public void recycle(byte[] row) {
+        freeRows.add(row);
+    }
+
+    /**
+     * Gets the generator state from which the next row to be taken is rolled.
+     *
+     * @return the state, for a SnapshotRandom resuming the rows
+     */
+    public long getNextRowState() {
+        return nextRowState;
+    }
+
+    /**
+     * Stops rolling rows.
+     */
+    public void close() {
+        rollingThread.interrupt();
+    }
+}
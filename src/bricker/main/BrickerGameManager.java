@@ -1,6 +1,5 @@
 package bricker.main;
 
-import bricker.brick_strategies.CollisionStrategy;
 import bricker.brick_strategies.CollisionStrategyFactory;
 import bricker.gameobjects.*;
 import danogl.GameManager;
@@ -13,7 +12,12 @@ import danogl.gui.rendering.Renderable;
 import danogl.util.Vector2;
 import danogl.util.Counter;
 
+import java.awt.Image;
 import java.awt.event.KeyEvent;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Random;
 
 /**
@@ -62,6 +66,16 @@ public class BrickerGameManager extends GameManager {
      */
     public static final String MAIN_PADDLE_TAG = "mainPuddle";
 
+    /**
+     * The tag for identifying the extra paddle object.
+     */
+    public static final String EXTRA_PADDLE_TAG = "extraPuddle";
+
+    /**
+     * The tag for identifying the second player's paddle in a lockstep session.
+     */
+    public static final String SECOND_PADDLE_TAG = "secondPuddle";
+
     /**
      * The tag for identifying dropping heart objects.
      */
@@ -76,6 +90,38 @@ public class BrickerGameManager extends GameManager {
      * The tag for identifying wall objects.
      */
     public static final String WALL_TAG = "wall";
+    /**
+     * The layer of the brick field. The field is rendered in this layer but is not part of the engine's
+     * collision pass; collisions with bricks are resolved by the field itself.
+     */
+    public static final int BRICKS_LAYER = Layer.STATIC_OBJECTS + 1;
+
+    /**
+     * The system property naming a file to record the session to, for replay.
+     */
+    public static final String RECORD_FILE_PROPERTY = "bricker.record";
+
+    /**
+     * The system property that turns endless mode on when set to true.
+     */
+    public static final String ENDLESS_PROPERTY = "bricker.endless";
+
+    /**
+     * The system property naming the skill level of a bot playing the main paddle (perfect, good or bad).
+     */
+    public static final String BOT_PROPERTY = "bricker.bot";
+
+    /**
+     * The system property choosing the policy of the entity budget (merge, delay or off).
+     */
+    public static final String BUDGET_PROPERTY = "bricker.budget";
+
+    /**
+     * The index of the frame profiler phase timing the rendering of the UI layer (the HUD), which
+     * runs outside of update().
+     */
+    public static final int UI_RENDER_PHASE = 8;
+
     /**
      * The name of the game window.
      */
@@ -91,6 +137,11 @@ public class BrickerGameManager extends GameManager {
      */
     private static final float WALL_WIDTH = 10;
 
+    /**
+     * The smallest width of a brick, which bounds the number of columns of a loaded level.
+     */
+    private static final float MIN_BRICK_WIDTH = 2;
+
     /**
      * The width of the paddle.
      */
@@ -109,12 +160,12 @@ public class BrickerGameManager extends GameManager {
     /**
      * The height of the game window.
      */
-    private static final float WINDOW_HEIGHT = 700;
+    public static final float WINDOW_HEIGHT = 700;
 
     /**
      * The width of the game window.
      */
-    private static final float WINDOW_WIDTH = 800;
+    public static final float WINDOW_WIDTH = 800;
 
     /**
      * The default maximum number of hearts.
@@ -141,6 +192,124 @@ public class BrickerGameManager extends GameManager {
      */
     private static final int NUM_OF_NEW_PUCKS = 2;
 
+    /**
+     * The part of its speed a puck gains for every puck merged into it by the entity budget.
+     */
+    private static final float MERGE_SPEEDUP = 0.25f;
+
+    /**
+     * The maximum speed of a puck that pucks were merged into.
+     */
+    private static final float MAX_MERGED_SPEED = 2 * BALL_SPEED;
+
+    /**
+     * The maximum number of spawns held back by the entity budget; spawns beyond it are dropped.
+     */
+    private static final int MAX_DELAYED_SPAWNS = 64;
+
+    /**
+     * The rate, in ticks per second, at which the game logic runs, independently of the frame rate.
+     */
+    private static final int TICK_RATE = 120;
+
+    /**
+     * The duration, in seconds, of a single logic tick.
+     */
+    private static final float TICK_DURATION = 1f / TICK_RATE;
+
+    /**
+     * The maximum number of ticks run to catch up in a single frame. Time a stalled frame owes beyond
+     * that is dropped, so that a slow machine slows the game down instead of falling further behind.
+     */
+    private static final int MAX_TICKS_PER_FRAME = 8;
+
+    /**
+     * The tags of the registered objects that move, and are interpolated when rendered.
+     */
+    private static final String[] MOVING_TAGS =
+            {MAIN_PADDLE_TAG, EXTRA_PADDLE_TAG, SECOND_PADDLE_TAG, PUCK_TAG, DROP_HEART_TAG};
+
+    /**
+     * The horizontal positions, as parts of the window width, of the two paddles of a lockstep session.
+     */
+    private static final float MAIN_PADDLE_LOCKSTEP_X = 0.35f;
+    private static final float SECOND_PADDLE_LOCKSTEP_X = 0.65f;
+
+    /**
+     * The indices of the timed phases of a frame, in the order they run.
+     */
+    private static final int ENGINE_PHASE = 0;
+    private static final int BRICKS_PHASE = 1;
+    private static final int GAME_OVER_PHASE = 2;
+    private static final int CLEAR_PHASE = 3;
+    private static final int EXTRA_PADDLE_PHASE = 4;
+    private static final int LIFE_PHASE = 5;
+    private static final int CAMERA_PHASE = 6;
+    private static final int COMMANDS_PHASE = 7;
+
+    /**
+     * The first int of a saved game state ("BRKS").
+     */
+    private static final int STATE_MAGIC = 0x42524B53;
+
+    /**
+     * The version of the saved game state format.
+     */
+    private static final short STATE_VERSION = 3;
+
+    /**
+     * The size, in bytes, of the part of a saved game state before the brick field: the magic, version,
+     * grid, game result, random generators, tick accumulator and bricks counter.
+     */
+    private static final int STATE_BEFORE_FIELD_SIZE = Integer.BYTES + Short.BYTES + 2 * Integer.BYTES + 1
+            + Long.BYTES + 1 + Long.BYTES + Float.BYTES + Integer.BYTES;
+
+    /**
+     * The size, in bytes, of the part of a saved game state between the brick field and the bot: the
+     * ball, the hearts, the paddles, the camera and whether a bot plays the main paddle.
+     */
+    private static final int STATE_AFTER_FIELD_SIZE = 4 * Float.BYTES + 2 * Integer.BYTES + Float.BYTES + 1
+            + 2 * Float.BYTES + Integer.BYTES + 1 + Integer.BYTES + 1;
+
+    /**
+     * The size, in bytes, of the fixed part of a saved game state, the brick field and the bot aside:
+     * every part but the pucks, dropping hearts and held back spawns, and their counts, and the
+     * counters of the entity budget.
+     */
+    private static final int STATE_FIXED_SIZE = STATE_BEFORE_FIELD_SIZE + STATE_AFTER_FIELD_SIZE
+            + 3 * Integer.BYTES + EntityBudget.COUNTERS_SIZE;
+
+    /**
+     * The size, in bytes, of a puck in a saved game state: its position and velocity.
+     */
+    private static final int STATE_PUCK_SIZE = 4 * Float.BYTES;
+
+    /**
+     * The size, in bytes, of a dropping heart in a saved game state: its center.
+     */
+    private static final int STATE_HEART_SIZE = 2 * Float.BYTES;
+
+    /**
+     * The size, in bytes, of a spawn held back by the entity budget in a saved game state: its type,
+     * the number of objects and their location.
+     */
+    private static final int STATE_DELAYED_SPAWN_SIZE = 1 + Integer.BYTES + 2 * Float.BYTES;
+
+    /**
+     * The number of brick rows rolled ahead of time in endless mode.
+     */
+    private static final int ENDLESS_AHEAD_ROWS = 4;
+
+    /**
+     * The maximum number of free pucks kept for reuse.
+     */
+    private static final int PUCK_POOL_CAPACITY = 64;
+
+    /**
+     * The number of pucks allocated when a game starts.
+     */
+    private static final int PUCK_POOL_PREWARM = 16;
+
     /**
      * The number of collisions needed for extra paddle mode.
      */
@@ -151,15 +320,21 @@ public class BrickerGameManager extends GameManager {
      */
     private static final int CAMERA_MODE_COLLISIONS = 5;
 
+    /**
+     * The default range of the strategy roll of every brick. Rolls 0-4 are special strategies,
+     * higher rolls are basic bricks.
+     */
+    private static final int DEAFAULT_STRATEGY_ROLL_RANGE = 10;
+
     /**
      * The default number of bricks in a row.
      */
-    private static final int DEAFAULT_BRICKS_IN_ROW = 7;
+    static final int DEAFAULT_BRICKS_IN_ROW = 7;
 
     /**
      * The default number of bricks in a column.
      */
-    private static final int DEAFAULT_BRICKS_IN_COL = 8;
+    static final int DEAFAULT_BRICKS_IN_COL = 8;
 
     /**
      * Losing massage
@@ -171,24 +346,64 @@ public class BrickerGameManager extends GameManager {
      */
     private static final String WIN_PROMPT = "You win! Play again?";
 
+    /**
+     * The messages at the end of a lockstep game, which cannot be played again, with the local and
+     * the other player's scores.
+     */
+    private static final String LOCKSTEP_LOSE_MESSAGE = "You lose, %d to %d!";
+    private static final String LOCKSTEP_WIN_MESSAGE = "You win, %d to %d!";
+    private static final String LOCKSTEP_DRAW_MESSAGE = "Draw, %d to %d.";
+    private static final String LOCKSTEP_DESYNC_MESSAGE = " The other player's game ended differently.";
+
     //general
     private Counter extraPaddleHitCounter;
     private int turnOffCameraBallCounterVal = 0;
     private final Vector2 windowDimensions;
     private int rowsNumOfBricks = DEAFAULT_BRICKS_IN_ROW;
     private int colsNumsOfBricks = DEAFAULT_BRICKS_IN_COL;
-    private Random random;
+    private BrickLevel level;
+    private String levelPath;
+    private boolean isEndless = false;
+    private BotSkill botSkill;
+    private BrickRowStreamer rowStreamer;
+    private long sessionSeed;
+    private SnapshotRandom random;
+    private int strategyRollRange = DEAFAULT_STRATEGY_ROLL_RANGE;
     //game manager tools
     private WindowController windowController;
     private HeartsManager heartsManager;
     private Counter bricksCounter;
+    private BrickField brickField;
+    private PuckPool puckPool;
     private UserInputListener inputListener;
-    private ImageReader imageReader;
-    private SoundReader soundReader;
+    private AssetCache assetCache;
     //game objects
     private Ball ball;
     private Paddle mainPaddle;
+    private BotPaddle botPaddle;
     private ExtraPaddle extraPaddle;
+    private final ObjectRegistry objectRegistry =
+            new ObjectRegistry(PUCK_TAG, DROP_HEART_TAG, MAIN_PADDLE_TAG, EXTRA_PADDLE_TAG, SECOND_PADDLE_TAG);
+    private final FrameProfiler frameProfiler = new FrameProfiler("engine", "bricks", "checkIfGameOver",
+            "clearObjects", "updateExtraPaddle", "updateLife", "updateCameraMode", "deferredCommands", "uiRender");
+    private final CommandQueue commandQueue = new CommandQueue();
+    private EntityBudget entityBudget = new EntityBudget(EntityBudget.Policy.MERGE);
+    private CommandQueue delayedSpawns = new CommandQueue();
+    private CommandQueue retriedSpawns = new CommandQueue();
+    private final RenderInterpolator renderInterpolator = new RenderInterpolator();
+    private float tickAccumulator = 0;
+    private InputRecorder inputRecorder;
+    //lockstep session
+    private LockstepSession lockstep;
+    private final HeadlessInput[] lockstepInputs = {new HeadlessInput(), new HeadlessInput()};
+    private UserInputListener localInputListener;
+    private int lockstepTickNum = 0;
+    private Paddle secondPaddle;
+    //bricks broken by balls each player's paddle hit last, by player
+    private final int[] lockstepScores = new int[2];
+    //headless mode
+    private boolean isHeadless = false;
+    private GameResult gameResult = GameResult.IN_PROGRESS;
 
     /**
      * Constructs a new BrickerGameManager with the specified window title, dimensions, and number of bricks.
@@ -214,7 +429,78 @@ public class BrickerGameManager extends GameManager {
     public BrickerGameManager(String windowTitle, Vector2 windowDimensions) {
         super(windowTitle, windowDimensions);
         this.windowDimensions = windowDimensions;
-        random = new Random();
+        setSeed(new Random().nextLong());
+    }
+
+    /**
+     * Loads the board of every game from a level file instead of rolling it at random.
+     *
+     * @param levelPath the path of the level file
+     * @throws IOException if the file cannot be read, is not a valid level, or does not fit the window
+     */
+    public void loadLevel(String levelPath) throws IOException {
+        BrickLevel loadedLevel = BrickLevel.open(levelPath);
+        loadedLevel.validate(windowDimensions.x() - 2 * WALL_WIDTH, MIN_BRICK_WIDTH);
+        level = loadedLevel;
+        this.levelPath = levelPath;
+        rowsNumOfBricks = level.getRowsNum();
+        colsNumsOfBricks = level.getColsNum();
+    }
+
+    /**
+     * Plays the game as one side of a lockstep session: the session's seed and board are used, the
+     * main paddle is the hosting player's and a second paddle is the joining player's, and every tick
+     * runs on the key masks of both players for that tick. The players play versus on the shared board:
+     * a broken brick scores for the player whose paddle last hit the ball that broke it, and when the
+     * game ends the player with more points wins. Should be called before the game is initialized.
+     *
+     * @param lockstep the connected session
+     */
+    public void setLockstep(LockstepSession lockstep) {
+        this.lockstep = lockstep;
+        setSeed(lockstep.getSeed());
+        rowsNumOfBricks = lockstep.getRowsNum();
+        colsNumsOfBricks = lockstep.getColsNum();
+    }
+
+    /**
+     * Lets a bot play the main paddle in the following games, predicting where to meet the ball
+     * instead of reading the keys. Should be called before the game is initialized.
+     *
+     * @param botSkill the skill level of the bot, or null for a player-controlled paddle
+     */
+    public void setBotSkill(BotSkill botSkill) {
+        this.botSkill = botSkill;
+    }
+
+    /**
+     * Sets whether the following games are endless: cleared bottom rows are recycled as new top rows
+     * of random bricks, and the game is only won by the skip key. Endless mode needs a random board,
+     * so it is ignored while a level is loaded.
+     *
+     * @param isEndless true for endless games
+     */
+    public void setEndless(boolean isEndless) {
+        this.isEndless = isEndless;
+    }
+
+    /**
+     * Sets the budget limiting the live pucks and dropping hearts. Its counters accumulate over
+     * all the following games.
+     *
+     * @param entityBudget the budget
+     */
+    public void setEntityBudget(EntityBudget entityBudget) {
+        this.entityBudget = entityBudget;
+    }
+
+    /**
+     * Gets the budget limiting the live pucks and dropping hearts, for its counters.
+     *
+     * @return the entity budget
+     */
+    public EntityBudget getEntityBudget() {
+        return entityBudget;
     }
 
     /**
@@ -231,45 +517,137 @@ public class BrickerGameManager extends GameManager {
         super.initializeGame(imageReader, soundReader, inputListener, windowController);
         this.windowController = windowController;
         this.inputListener = inputListener;
-        this.imageReader = imageReader;
-        this.soundReader = soundReader;
+        if (lockstep != null) {
+            this.localInputListener = inputListener;
+            this.inputListener = lockstepInputs[LockstepSession.HOST_PLAYER].getInputListener();
+        }
+        this.assetCache = AssetCache.shared();
+        assetCache.setReaders(imageReader, soundReader);
+        initializeBoard();
+    }
+
+    /**
+     * Initializes the game without a window, dialogs or audio, so that it can be stepped
+     * directly through update(float). No images or sounds are loaded in this mode, and the end
+     * of the game is reported through getGameResult() instead of a dialog.
+     *
+     * @param inputListener the listener for (scripted) user input
+     */
+    public void initializeHeadless(UserInputListener inputListener) {
+        super.initializeGame(null, null, inputListener, null);
+        this.isHeadless = true;
+        this.windowController = null;
+        this.inputListener = inputListener;
+        if (lockstep != null) {
+            this.localInputListener = inputListener;
+            this.inputListener = lockstepInputs[LockstepSession.HOST_PLAYER].getInputListener();
+        }
+        this.assetCache = null;
+        initializeBoard();
+    }
+
+    /**
+     * Creates all the objects of a new game: hearts, walls, bricks, ball and paddles.
+     */
+    private void initializeBoard() {
+        gameResult = GameResult.IN_PROGRESS;
+        releasePucks();
+        objectRegistry.clear();
+        lockstepTickNum = 0;
+        Arrays.fill(lockstepScores, 0);
+        commandQueue.clear();
+        delayedSpawns.clear();
+        renderInterpolator.clear();
+        tickAccumulator = 0;
+        if (inputRecorder != null && !inputRecorder.hasStarted()) {
+            inputRecorder.start(sessionSeed, rowsNumOfBricks, colsNumsOfBricks, strategyRollRange, isEndless,
+                    levelPath, botSkill, entityBudget);
+        }
         heartsManager = new HeartsManager(DEAFAULT_INIT_HEARTS, DEAFAULT_MAX_HEARTS, this);
         Vector2 heartDisplayTopLeftCorner = new Vector2(WALL_WIDTH,
                 windowDimensions.y()-(heartsManager.HEART_WIDTH+WALL_WIDTH));
-        heartsManager.initializedHearts(heartDisplayTopLeftCorner, imageReader);
+        heartsManager.initializedHearts(heartDisplayTopLeftCorner, readImage(HeartsManager.HEART_PATH, true),
+                readAtlasImage(HeartsManager.HEART_PATH, true));
         initializeScreen();
         createBricks();
         createBall();
         createPaddles();
+        createPuckPool();
     }
 
     /**
-     * Creates and initializes the main and extra paddles.
+     * Creates and initializes the main and extra paddles, and the second paddle of a lockstep session.
      */
     private void createPaddles() {
         extraPaddleHitCounter = new Counter();
-        Renderable paddleImage = imageReader.readImage(PADDLE_PATH, false);
-        mainPaddle = new Paddle(Vector2.ZERO, new Vector2(PADDLE_WIDTH, PADDLE_HEIGHT), paddleImage,
-                inputListener, windowDimensions.x());
+        Renderable paddleImage = readImage(PADDLE_PATH, false);
+        botPaddle = null;
+        if (botSkill != null) {
+            botPaddle = new BotPaddle(Vector2.ZERO, new Vector2(PADDLE_WIDTH, PADDLE_HEIGHT),
+                    readImage(botSkill.getImagePath(), false), windowDimensions.x(), ball, botSkill,
+                    random.nextLong(), WALL_WIDTH, (int)windowDimensions.x()-WALL_WIDTH, WALL_WIDTH);
+            mainPaddle = botPaddle;
+        }
+        else {
+            mainPaddle = new Paddle(Vector2.ZERO, new Vector2(PADDLE_WIDTH, PADDLE_HEIGHT), paddleImage,
+                    inputListener, windowDimensions.x());
+        }
         extraPaddle = new ExtraPaddle(new Vector2(-1,-1), new Vector2(PADDLE_WIDTH, PADDLE_HEIGHT),
                 paddleImage, inputListener, windowDimensions.x(), extraPaddleHitCounter);
         mainPaddle.setCenter(new Vector2(windowDimensions.x()*0.5f, (int)windowDimensions.y()-PADDLE_Y));
+        extraPaddle.setTag(EXTRA_PADDLE_TAG);
         mainPaddle.setTag(MAIN_PADDLE_TAG);
-        gameObjects().addGameObject(mainPaddle);
+        addObject(mainPaddle, Layer.DEFAULT);
+        if (lockstep != null) {
+            secondPaddle = new Paddle(Vector2.ZERO, new Vector2(PADDLE_WIDTH, PADDLE_HEIGHT), paddleImage,
+                    lockstepInputs[LockstepSession.JOINING_PLAYER].getInputListener(), windowDimensions.x());
+            mainPaddle.setCenter(new Vector2(windowDimensions.x()*MAIN_PADDLE_LOCKSTEP_X,
+                    (int)windowDimensions.y()-PADDLE_Y));
+            secondPaddle.setCenter(new Vector2(windowDimensions.x()*SECOND_PADDLE_LOCKSTEP_X,
+                    (int)windowDimensions.y()-PADDLE_Y));
+            secondPaddle.setTag(SECOND_PADDLE_TAG);
+            addObject(secondPaddle, Layer.DEFAULT);
+        }
     }
 
     /**
      * Creates and initializes the ball.
      */
     private void createBall() {
-        Renderable ballImage = imageReader.readImage(BALL_PATH, true);
-        Sound collisionSound = soundReader.readSound(BLOP_PATH);
+        Renderable ballImage = readImage(BALL_PATH, true);
+        Sound collisionSound = readSound(BLOP_PATH);
         ball = new Ball(Vector2.ZERO, new Vector2(BALL_RADIUS, BALL_RADIUS), ballImage, collisionSound);
         ball.setTag(MAIN_BALL_TAG);
         setBallVelocityAndCenter();
         gameObjects().addGameObject(ball);
     }
 
+    /**
+     * Creates the pool the pucks are taken from, once: the following games reuse it.
+     */
+    private void createPuckPool() {
+        if (puckPool != null) {
+            return;
+        }
+        Vector2 puckDimensions = new Vector2(BALL_RADIUS*0.75f, BALL_RADIUS*0.75f);
+        puckPool = new PuckPool(PUCK_POOL_CAPACITY, PUCK_POOL_PREWARM, puckDimensions,
+                readImage(PUCK_PATH, true), readSound(BLOP_PATH), PUCK_TAG);
+    }
+
+    /**
+     * Returns the pucks of the previous game to the pool when a new board is built. They are not
+     * removed from the game objects, which the new board starts without.
+     */
+    private void releasePucks() {
+        if (puckPool == null) {
+            return;
+        }
+        List<GameObject> pucks = objectRegistry.getObjects(PUCK_TAG);
+        for (int i = 0; i < pucks.size(); i++) {
+            puckPool.release((Ball) pucks.get(i));
+        }
+    }
+
     /**
      * Sets the ball's velocity and centers it in the window.
      */
@@ -284,6 +662,9 @@ public class BrickerGameManager extends GameManager {
         }
         ball.setVelocity(new Vector2(ballVelX, ballVeY));
         ball.setCenter(windowDimensions.mult(0.5f));
+        if (botPaddle != null) {
+            botPaddle.retarget();
+        }
     }
 
 
@@ -306,30 +687,86 @@ public class BrickerGameManager extends GameManager {
         upperWall.setTag(WALL_TAG);
 
         //creating background
-        Renderable backgroundImage = imageReader.readImage(BACKGROUND_PATH, false);
+        Renderable backgroundImage = readImage(BACKGROUND_PATH, false);
         GameObject background = new GameObject(Vector2.ZERO, windowDimensions, backgroundImage);
         background.setCoordinateSpace(CoordinateSpace.CAMERA_COORDINATES);
         gameObjects().addGameObject(background, Layer.BACKGROUND);
     }
 
     /**
-     * Creates and initializes the bricks.
+     * Creates and initializes the bricks, from the loaded level or rolled at random.
      */
     private void createBricks(){
-        CollisionStrategyFactory collisionStrategyFactory = new CollisionStrategyFactory();
         bricksCounter = new Counter(rowsNumOfBricks*colsNumsOfBricks);
-        Renderable brickImage = imageReader.readImage(BRICK_PATH, false);
         float brickWidth = (windowDimensions.x()-2*WALL_WIDTH)/ colsNumsOfBricks;
         Vector2 brickDim = new Vector2(brickWidth-0.2f, BRICK_HEIGHT);
-        for (int i = 0; i < rowsNumOfBricks; i++) {
-            for (int j = 0; j < colsNumsOfBricks; j++) {
-                CollisionStrategy collisionStrategy =
-                        collisionStrategyFactory.chosenStrategy(random.nextInt(10),this, bricksCounter);
-                Brick brick = new Brick(Vector2.ZERO, brickDim, brickImage, collisionStrategy);
-                brick.setTopLeftCorner(new Vector2(WALL_WIDTH+j*brickWidth, WALL_WIDTH+i*(BRICK_HEIGHT+2)));
-                gameObjects().addGameObject(brick, Layer.STATIC_OBJECTS);
+        if (rowStreamer != null) {
+            rowStreamer.close();
+            rowStreamer = null;
+        }
+        ByteBuffer strategyCodes;
+        ByteBuffer hitPoints = null;
+        if (level != null) {
+            strategyCodes = level.getStrategyCodes();
+            hitPoints = level.getHitPoints();
+        }
+        else {
+            byte[] rolledCodes = new byte[rowsNumOfBricks*colsNumsOfBricks];
+            for (int i = 0; i < rolledCodes.length; i++) {
+                rolledCodes[i] = (byte) CollisionStrategyFactory.rollStrategyCode(random, strategyRollRange);
+            }
+            strategyCodes = ByteBuffer.wrap(rolledCodes);
+            if (isEndless) {
+                rowStreamer = new BrickRowStreamer(colsNumsOfBricks, new SnapshotRandom(random.nextLong()),
+                        strategyRollRange, ENDLESS_AHEAD_ROWS);
             }
         }
+        brickField = new BrickField(new Vector2(WALL_WIDTH, WALL_WIDTH), new Vector2(brickWidth, BRICK_HEIGHT+2),
+                brickDim, strategyCodes, hitPoints, colsNumsOfBricks, windowDimensions.y(), BALL_RADIUS,
+                readAtlasImage(BRICK_PATH, false), new CollisionStrategyFactory(this, bricksCounter));
+        gameObjects().layers().shouldLayersCollide(BRICKS_LAYER, Layer.DEFAULT, false);
+        gameObjects().addGameObject(brickField, BRICKS_LAYER);
+    }
+
+    /**
+     * Reads an image through the asset cache, or returns null in headless mode where nothing is rendered.
+     *
+     * @param imagePath the path of the image file
+     * @param isTopLeftPixelTransparent whether the top-left pixel color should be transparent
+     * @return the image renderable, or null in headless mode
+     */
+    private Renderable readImage(String imagePath, boolean isTopLeftPixelTransparent) {
+        if (isHeadless) {
+            return null;
+        }
+        return assetCache.readImage(imagePath, isTopLeftPixelTransparent);
+    }
+
+    /**
+     * Reads the raw image of an atlas sprite, or returns null in headless mode where nothing is rendered.
+     *
+     * @param imagePath the path of the image file
+     * @param isTopLeftPixelTransparent whether the top-left pixel color should be transparent
+     * @return the sprite image, or null in headless mode or if the sprite is not in the atlas
+     */
+    private Image readAtlasImage(String imagePath, boolean isTopLeftPixelTransparent) {
+        if (isHeadless) {
+            return null;
+        }
+        return assetCache.readAtlasImage(imagePath, isTopLeftPixelTransparent);
+    }
+
+    /**
+     * Reads a sound through the asset cache, or returns null in headless mode where no audio is played.
+     *
+     * @param soundPath the path of the sound file
+     * @return the sound, or null in headless mode
+     */
+    private Sound readSound(String soundPath) {
+        if (isHeadless) {
+            return null;
+        }
+        return assetCache.readSound(soundPath);
     }
 
     /**
@@ -340,7 +777,60 @@ public class BrickerGameManager extends GameManager {
      * @return true if the object was successfully removed, false otherwise
      */
     public boolean removeObject(GameObject gameObject, int layer) {
-        return gameObjects().removeGameObject(gameObject, layer);
+        if (gameObjects().removeGameObject(gameObject, layer)) {
+            if (objectRegistry.unregister(gameObject) && gameObject.getTag().equals(PUCK_TAG)) {
+                puckPool.release((Ball) gameObject);
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Removes a brick from the brick field. The brick stops colliding at once, and repeated removals
+     * of it return false; waking its neighbours is deferred to the end of the frame.
+     *
+     * @param brick the brick to remove, as handed to a collision strategy by the field
+     * @return true if the brick was successfully removed, false otherwise
+     */
+    public boolean removeBrick(GameObject brick) {
+        if (!(brick instanceof Brick)) {
+            return false;
+        }
+        int cell = ((Brick) brick).getGridIndex();
+        if (!brickField.remove(cell)) {
+            return false;
+        }
+        commandQueue.add(CommandQueue.REMOVE_BRICK, cell, 0, 0);
+        return true;
+    }
+
+    /**
+     * Applies the world changes requested by collision strategies since the last call, in the
+     * order they were requested. Called at the end of every update, and can be called directly
+     * to apply requests made outside of an update.
+     */
+    public void applyDeferredCommands() {
+        retryDelayedSpawns();
+        for (int i = 0; i < commandQueue.size(); i++) {
+            switch (commandQueue.type(i)) {
+                case CommandQueue.REMOVE_BRICK:
+                    brickField.wakeAround(commandQueue.cell(i));
+                    break;
+                case CommandQueue.SPAWN_PUCKS:
+                    spawnPucks(new Vector2(commandQueue.x(i), commandQueue.y(i)));
+                    break;
+                default:
+                    heartsManager.heartDroping(new Vector2(commandQueue.x(i), commandQueue.y(i)));
+            }
+        }
+        if (commandQueue.isExtraPaddleRequested()) {
+            placeExtraPaddle();
+        }
+        if (commandQueue.isCameraChangeRequested()) {
+            followBallWithCamera();
+        }
+        commandQueue.clear();
     }
 
     /**
@@ -351,30 +841,540 @@ public class BrickerGameManager extends GameManager {
      */
     public void addObject(GameObject gameObject, int layer){
         gameObjects().addGameObject(gameObject, layer);
+        objectRegistry.register(gameObject);
     }
 
     /**
-     * Updates the game state.
+     * Updates the game state by the logic ticks due in the elapsed time, and shows the moving objects
+     * interpolated between their last two tick positions.
      *
      * @param deltaTime the time elapsed since the last update
      */
     @Override
     public void update(float deltaTime) {
+        if (gameResult != GameResult.IN_PROGRESS) {
+            return;
+        }
+        if (inputRecorder != null) {
+            inputRecorder.recordFrame(InputRecorder.keyMask(inputListener), deltaTime);
+        }
+        renderInterpolator.restore();
+        tickAccumulator += deltaTime;
+        int ticksNum = 0;
+        while (tickAccumulator >= TICK_DURATION && ticksNum < MAX_TICKS_PER_FRAME
+                && gameResult == GameResult.IN_PROGRESS) {
+            if (lockstep != null && !prepareLockstepTick()) {
+                //time spent waiting for the other player is not caught up afterwards
+                tickAccumulator = Math.min(tickAccumulator, TICK_DURATION);
+                break;
+            }
+            if (!isHeadless) {
+                trackMovingObjects();
+            }
+            tick();
+            if (lockstep != null) {
+                lockstep.onTickExecuted(lockstepTickNum++);
+            }
+            tickAccumulator -= TICK_DURATION;
+            ticksNum++;
+        }
+        if (ticksNum == MAX_TICKS_PER_FRAME) {
+            tickAccumulator = Math.min(tickAccumulator, TICK_DURATION);
+        }
+        frameProfiler.endFrame();
+        if (inputRecorder != null && inputRecorder.isChecksumDue()) {
+            inputRecorder.recordChecksum(stateChecksum());
+        }
+        if (!isHeadless) {
+            renderInterpolator.present(tickAccumulator / TICK_DURATION);
+        }
+    }
+
+    /**
+     * Samples the local keys for a later tick of the lockstep session, and applies both players' key
+     * masks of the next tick if they are known. If the remote player's masks did not arrive yet, the
+     * tick waits for a later frame; the local masks are sent right away, so neither side waits for a
+     * batch of the other.
+     *
+     * @return true if the next tick can run, false otherwise
+     */
+    private boolean prepareLockstepTick() {
+        if (lockstep.hasRemoteResult() && lockstepTickNum > lockstep.getRemoteResultTick()) {
+            endLockstep(LOCKSTEP_DESYNC_MESSAGE.trim());
+            return false;
+        }
+        if (lockstep.isClosed() && !lockstep.hasRemoteResult()) {
+            endLockstep("The other player left the game.");
+            return false;
+        }
+        lockstep.sampleLocalInput(lockstepTickNum, InputRecorder.keyMask(localInputListener));
+        if (!lockstep.isTickReady(lockstepTickNum)) {
+            lockstep.flush();
+            return false;
+        }
+        for (int player = 0; player < lockstepInputs.length; player++) {
+            lockstepInputs[player].applyKeyMask(lockstep.getKeyMask(player, lockstepTickNum));
+        }
+        return true;
+    }
+
+    /**
+     * Ends a versus game: the player with more points wins, whichever way the game ended. The result
+     * is exchanged with the other side before the session closes.
+     */
+    private void endVersus() {
+        int localScore = lockstepScores[lockstep.getLocalPlayer()];
+        int otherScore = lockstepScores[1 - lockstep.getLocalPlayer()];
+        boolean isAgreed = lockstep.finish(lockstepTickNum, lockstepScores[LockstepSession.HOST_PLAYER],
+                lockstepScores[LockstepSession.JOINING_PLAYER]);
+        String message = LOCKSTEP_DRAW_MESSAGE;
+        gameResult = GameResult.DRAW;
+        if (localScore > otherScore) {
+            message = LOCKSTEP_WIN_MESSAGE;
+            gameResult = GameResult.WIN;
+        }
+        else if (localScore < otherScore) {
+            message = LOCKSTEP_LOSE_MESSAGE;
+            gameResult = GameResult.LOSE;
+        }
+        message = String.format(message, localScore, otherScore);
+        if (!isAgreed) {
+            message += LOCKSTEP_DESYNC_MESSAGE;
+        }
+        endLockstep(message);
+    }
+
+    /**
+     * Ends the lockstep session and the game, reporting the session's statistics. A lockstep game
+     * is not replayed, since the two players would have to agree on it.
+     *
+     * @param message the reason the session ended
+     */
+    private void endLockstep(String message) {
+        lockstep.close();
+        System.out.println(message);
+        System.out.print(lockstep.report());
+        if (gameResult == GameResult.IN_PROGRESS) {
+            gameResult = GameResult.LOSE;
+        }
+        if (windowController != null) {
+            windowController.closeWindow();
+        }
+    }
+
+    /**
+     * Tracks the ball, the paddles, the pucks and the dropping hearts for render interpolation.
+     */
+    private void trackMovingObjects() {
+        renderInterpolator.clear();
+        renderInterpolator.track(ball);
+        for (String tag : MOVING_TAGS) {
+            List<GameObject> objects = objectRegistry.getObjects(tag);
+            for (int i = 0; i < objects.size(); i++) {
+                renderInterpolator.track(objects.get(i));
+            }
+        }
+    }
+
+    /**
+     * Runs a single logic tick of TICK_DURATION seconds: the engine step, the collisions and the
+     * game rules.
+     */
+    private void tick() {
+        float deltaTime = TICK_DURATION;
+        long phaseStart = System.nanoTime();
         super.update(deltaTime);
+        phaseStart = frameProfiler.endPhase(ENGINE_PHASE, phaseStart);
+        collideWithBricks();
+        phaseStart = frameProfiler.endPhase(BRICKS_PHASE, phaseStart);
         checkIfGameOver();
+        phaseStart = frameProfiler.endPhase(GAME_OVER_PHASE, phaseStart);
         clearObjects();
+        phaseStart = frameProfiler.endPhase(CLEAR_PHASE, phaseStart);
         upadateExtraPaddle();
+        phaseStart = frameProfiler.endPhase(EXTRA_PADDLE_PHASE, phaseStart);
         updateLife();
+        phaseStart = frameProfiler.endPhase(LIFE_PHASE, phaseStart);
         updateCameraMode();
+        phaseStart = frameProfiler.endPhase(CAMERA_PHASE, phaseStart);
+        applyDeferredCommands();
+        recycleClearedRows();
+        frameProfiler.endPhase(COMMANDS_PHASE, phaseStart);
+    }
+
+    /**
+     * In endless mode, recycles the cleared bottom rows of the brick field as new top rows, streamed
+     * in already rolled.
+     */
+    private void recycleClearedRows() {
+        if (rowStreamer == null) {
+            return;
+        }
+        while (brickField.isBottomRowCleared()) {
+            byte[] row = rowStreamer.takeRow();
+            brickField.recycleBottomRow(row);
+            rowStreamer.recycle(row);
+            bricksCounter.increaseBy(colsNumsOfBricks);
+        }
+    }
+
+    /**
+     * Saves the live state of the game between frames into a compact binary blob: the bricks, the
+     * ball, pucks and dropping hearts, the hearts, the paddles and the bot's aim, the extra paddle and
+     * camera modes, the random generators and the spawns held back by the entity budget, with its
+     * counters, so the game can later continue exactly from this point. Objects shown
+     * interpolated between ticks are moved back to their simulated positions first.
+     *
+     * @return the saved state, to be restored by restoreState()
+     */
+    public byte[] saveState() {
+        renderInterpolator.restore();
+        List<GameObject> pucks = objectRegistry.getObjects(PUCK_TAG);
+        List<GameObject> droppingHearts = objectRegistry.getObjects(DROP_HEART_TAG);
+        ByteBuffer buffer = ByteBuffer.allocate(STATE_FIXED_SIZE + brickField.getStateSize() + getBotStateSize()
+                + pucks.size() * STATE_PUCK_SIZE + droppingHearts.size() * STATE_HEART_SIZE
+                + delayedSpawns.size() * STATE_DELAYED_SPAWN_SIZE);
+        buffer.putInt(STATE_MAGIC);
+        buffer.putShort(STATE_VERSION);
+        buffer.putInt(rowsNumOfBricks);
+        buffer.putInt(colsNumsOfBricks);
+        buffer.put((byte) gameResult.ordinal());
+        buffer.putLong(random.getState());
+        buffer.put((byte) (rowStreamer != null ? 1 : 0));
+        buffer.putLong(rowStreamer != null ? rowStreamer.getNextRowState() : 0);
+        buffer.putFloat(tickAccumulator);
+        buffer.putInt(bricksCounter.value());
+        brickField.writeState(buffer);
+        putMotion(buffer, ball);
+        buffer.putInt(ball.getCollisionCounter());
+        buffer.putInt(heartsManager.getHeartsNum());
+        buffer.putFloat(mainPaddle.getTopLeftCorner().x());
+        buffer.put((byte) (objectRegistry.count(EXTRA_PADDLE_TAG) > 0 ? 1 : 0));
+        buffer.putFloat(extraPaddle.getTopLeftCorner().x());
+        buffer.putFloat(extraPaddle.getTopLeftCorner().y());
+        buffer.putInt(extraPaddleHitCounter.value());
+        buffer.put((byte) (camera() != null ? 1 : 0));
+        buffer.putInt(turnOffCameraBallCounterVal);
+        buffer.put((byte) (botPaddle != null ? 1 : 0));
+        if (botPaddle != null) {
+            botPaddle.writeState(buffer);
+        }
+        buffer.putInt(pucks.size());
+        for (int i = 0; i < pucks.size(); i++) {
+            putMotion(buffer, pucks.get(i));
+        }
+        buffer.putInt(droppingHearts.size());
+        for (int i = 0; i < droppingHearts.size(); i++) {
+            Vector2 center = droppingHearts.get(i).getCenter();
+            buffer.putFloat(center.x());
+            buffer.putFloat(center.y());
+        }
+        entityBudget.writeCounters(buffer);
+        buffer.putInt(delayedSpawns.size());
+        for (int i = 0; i < delayedSpawns.size(); i++) {
+            buffer.put((byte) delayedSpawns.type(i));
+            buffer.putInt(delayedSpawns.cell(i));
+            buffer.putFloat(delayedSpawns.x(i));
+            buffer.putFloat(delayedSpawns.y(i));
+        }
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
+    /**
+     * Writes the position and velocity of an object into a saved game state.
+     *
+     * @param buffer the buffer of the state
+     * @param gameObject the object
+     */
+    private static void putMotion(ByteBuffer buffer, GameObject gameObject) {
+        Vector2 topLeft = gameObject.getTopLeftCorner();
+        Vector2 velocity = gameObject.getVelocity();
+        buffer.putFloat(topLeft.x());
+        buffer.putFloat(topLeft.y());
+        buffer.putFloat(velocity.x());
+        buffer.putFloat(velocity.y());
+    }
+
+    /**
+     * Reads the position and velocity of an object from a saved game state.
+     *
+     * @param buffer the buffer of the state
+     * @param gameObject the object
+     */
+    private static void getMotion(ByteBuffer buffer, GameObject gameObject) {
+        gameObject.setTopLeftCorner(new Vector2(buffer.getFloat(), buffer.getFloat()));
+        gameObject.setVelocity(new Vector2(buffer.getFloat(), buffer.getFloat()));
+    }
+
+    /**
+     * Restores a state saved by saveState() into the running game, between frames, without rebuilding
+     * the game. The game must have the same board: the same grid, and the same level file if any, and
+     * a bot must play the main paddle if and only if one played it in the saved game.
+     *
+     * @param state the saved state
+     * @throws IllegalArgumentException if the state is not a saved state of this board, or is truncated;
+     *                                  the game is left unchanged then
+     */
+    public void restoreState(byte[] state) {
+        ByteBuffer buffer = ByteBuffer.wrap(state);
+        validateState(buffer);
+        buffer.position(Integer.BYTES + Short.BYTES + 2 * Integer.BYTES);
+        gameResult = GameResult.values()[buffer.get()];
+        random.setState(buffer.getLong());
+        boolean isStreaming = buffer.get() != 0;
+        long nextRowState = buffer.getLong();
+        if (rowStreamer != null) {
+            rowStreamer.close();
+            rowStreamer = null;
+        }
+        if (isStreaming) {
+            SnapshotRandom rowsRandom = new SnapshotRandom(0);
+            rowsRandom.setState(nextRowState);
+            rowStreamer = new BrickRowStreamer(colsNumsOfBricks, rowsRandom, strategyRollRange,
+                    ENDLESS_AHEAD_ROWS);
+        }
+        tickAccumulator = buffer.getFloat();
+        commandQueue.clear();
+        renderInterpolator.restore();
+        renderInterpolator.clear();
+        bricksCounter.reset();
+        bricksCounter.increaseBy(buffer.getInt());
+        brickField.readState(buffer);
+        getMotion(buffer, ball);
+        ball.setCollisionCounter(buffer.getInt());
+        heartsManager.setHeartsNum(buffer.getInt());
+        mainPaddle.setTopLeftCorner(new Vector2(buffer.getFloat(), mainPaddle.getTopLeftCorner().y()));
+        boolean hasExtraPaddle = buffer.get() != 0;
+        extraPaddle.setTopLeftCorner(new Vector2(buffer.getFloat(), buffer.getFloat()));
+        extraPaddleHitCounter.reset();
+        extraPaddleHitCounter.increaseBy(buffer.getInt());
+        if (hasExtraPaddle && objectRegistry.count(EXTRA_PADDLE_TAG) == 0) {
+            addObject(extraPaddle, Layer.DEFAULT);
+        }
+        else if (!hasExtraPaddle) {
+            removeObject(extraPaddle, Layer.DEFAULT);
+        }
+        boolean isCameraOn = buffer.get() != 0;
+        turnOffCameraBallCounterVal = buffer.getInt();
+        setCamera(isCameraOn ?
+                new Camera(ball, Vector2.ZERO, windowDimensions.mult(1.2f), windowDimensions) : null);
+        buffer.get();
+        if (botPaddle != null) {
+            botPaddle.readState(buffer);
+        }
+        removeAll(objectRegistry.getObjects(PUCK_TAG));
+        int pucksNum = buffer.getInt();
+        for (int i = 0; i < pucksNum; i++) {
+            Ball puck = puckPool.acquire();
+            getMotion(buffer, puck);
+            addObject(puck, Layer.DEFAULT);
+        }
+        removeAll(objectRegistry.getObjects(DROP_HEART_TAG));
+        int droppingHeartsNum = buffer.getInt();
+        for (int i = 0; i < droppingHeartsNum; i++) {
+            heartsManager.placeDroppingHeart(new Vector2(buffer.getFloat(), buffer.getFloat()));
+        }
+        entityBudget.readCounters(buffer);
+        delayedSpawns.clear();
+        int delayedSpawnsNum = buffer.getInt();
+        for (int i = 0; i < delayedSpawnsNum; i++) {
+            delayedSpawns.add(buffer.get(), buffer.getInt(), buffer.getFloat(), buffer.getFloat());
+        }
+    }
+
+    /**
+     * Checks that a buffer holds a whole saved state of this board, reading it in place without
+     * changing its position.
+     *
+     * @param buffer the buffer of the state
+     * @throws IllegalArgumentException if the state is not a saved state of this board, holds an unknown
+     *                                  game result or spawn type, or its size is not the size its puck,
+     *                                  heart and held back spawn counts call for
+     */
+    private void validateState(ByteBuffer buffer) {
+        int length = buffer.limit();
+        if (length < STATE_BEFORE_FIELD_SIZE || buffer.getInt(0) != STATE_MAGIC
+                || buffer.getShort(Integer.BYTES) != STATE_VERSION) {
+            throw new IllegalArgumentException("Not a saved game state");
+        }
+        int rowsNum = buffer.getInt(Integer.BYTES + Short.BYTES);
+        int colsNum = buffer.getInt(2 * Integer.BYTES + Short.BYTES);
+        if (rowsNum != rowsNumOfBricks || colsNum != colsNumsOfBricks) {
+            throw new IllegalArgumentException("The saved game has a board of " + rowsNum + "x" + colsNum
+                    + ", not " + rowsNumOfBricks + "x" + colsNumsOfBricks);
+        }
+        int gameResultOrdinal = buffer.get(3 * Integer.BYTES + Short.BYTES);
+        if (gameResultOrdinal < 0 || gameResultOrdinal >= GameResult.values().length) {
+            throw new IllegalArgumentException("The saved game has an unknown result " + gameResultOrdinal);
+        }
+        int botFlagOffset = STATE_BEFORE_FIELD_SIZE + brickField.getStateSize() + STATE_AFTER_FIELD_SIZE - 1;
+        int pucksNumOffset = botFlagOffset + 1 + getBotStateSize();
+        if (length < pucksNumOffset + 2 * Integer.BYTES) {
+            throw new IllegalArgumentException("The saved game state is truncated");
+        }
+        if ((buffer.get(botFlagOffset) != 0) != (botPaddle != null)) {
+            throw new IllegalArgumentException("The saved game " + (botPaddle != null ? "has no" : "has a")
+                    + " bot playing the main paddle");
+        }
+        int pucksNum = buffer.getInt(pucksNumOffset);
+        long heartsNumOffset = pucksNumOffset + Integer.BYTES + (long) pucksNum * STATE_PUCK_SIZE;
+        if (pucksNum < 0 || heartsNumOffset + Integer.BYTES > length) {
+            throw new IllegalArgumentException("The saved game state is truncated");
+        }
+        int heartsNum = buffer.getInt((int) heartsNumOffset);
+        long delayedSpawnsNumOffset = heartsNumOffset + Integer.BYTES + (long) heartsNum * STATE_HEART_SIZE
+                + EntityBudget.COUNTERS_SIZE;
+        if (heartsNum < 0 || delayedSpawnsNumOffset + Integer.BYTES > length) {
+            throw new IllegalArgumentException("The saved game state is truncated");
+        }
+        int delayedSpawnsNum = buffer.getInt((int) delayedSpawnsNumOffset);
+        long delayedSpawnsOffset = delayedSpawnsNumOffset + Integer.BYTES;
+        if (delayedSpawnsNum < 0
+                || delayedSpawnsOffset + (long) delayedSpawnsNum * STATE_DELAYED_SPAWN_SIZE != length) {
+            throw new IllegalArgumentException(
+                    "The saved game state does not match its puck, heart and held back spawn counts");
+        }
+        for (int i = 0; i < delayedSpawnsNum; i++) {
+            int type = buffer.get((int) delayedSpawnsOffset + i * STATE_DELAYED_SPAWN_SIZE);
+            if (type != CommandQueue.SPAWN_PUCKS && type != CommandQueue.DROP_HEART) {
+                throw new IllegalArgumentException("The saved game state holds back an unknown spawn");
+            }
+        }
+    }
+
+    /**
+     * Gets the size, in bytes, of the bot's aim in a saved game state.
+     *
+     * @return the size of the bot's state, 0 if no bot plays the main paddle
+     */
+    private int getBotStateSize() {
+        return botPaddle != null ? BotPaddle.STATE_SIZE : 0;
+    }
+
+    /**
+     * Removes every object of a registry list from the game.
+     *
+     * @param objects the registered objects to remove
+     */
+    private void removeAll(List<GameObject> objects) {
+        for (int i = objects.size() - 1; i >= 0; i--) {
+            removeObject(objects.get(i), Layer.DEFAULT);
+        }
+    }
+
+    /**
+     * Computes a checksum of the game state, to verify that a replay follows the recorded game.
+     *
+     * @return a hash of the ball's position and velocity, the bricks and pucks counts, the hearts
+     * and the game result
+     */
+    public int stateChecksum() {
+        Vector2 ballTopLeft = ball.getTopLeftCorner();
+        Vector2 ballVelocity = ball.getVelocity();
+        int checksum = Float.floatToIntBits(ballTopLeft.x());
+        checksum = 31 * checksum + Float.floatToIntBits(ballTopLeft.y());
+        checksum = 31 * checksum + Float.floatToIntBits(ballVelocity.x());
+        checksum = 31 * checksum + Float.floatToIntBits(ballVelocity.y());
+        checksum = 31 * checksum + bricksCounter.value();
+        checksum = 31 * checksum + getPucksNum();
+        checksum = 31 * checksum + heartsManager.getHeartsNum();
+        return 31 * checksum + gameResult.ordinal();
+    }
+
+    /**
+     * Records the input of the next game to a file, for replay. Should be called before the game
+     * is initialized; the recording ends when that game ends, or when the program exits mid-game.
+     *
+     * @param recordingPath the path of the recording file
+     * @throws IOException if the file cannot be created
+     */
+    public void startRecording(String recordingPath) throws IOException {
+        inputRecorder = new InputRecorder(recordingPath);
+    }
+
+    /**
+     * Ends the recording, if any, as when the window was closed mid-game. A recording that is not
+     * ended this way or by the end of the game is ended when the program exits.
+     */
+    public void stopRecording() {
+        if (inputRecorder != null) {
+            inputRecorder.finish();
+        }
+    }
+
+    /**
+     * Gets the profiler timing the phases of every frame.
+     *
+     * @return the frame profiler
+     */
+    public FrameProfiler getFrameProfiler() {
+        return frameProfiler;
+    }
+
+    /**
+     * Resolves the collisions of the main ball and the pucks with the bricks, through the brick field,
+     * and catches balls that moved past a wall within the tick.
+     */
+    private void collideWithBricks() {
+        collideWithBricks(ball);
+        List<GameObject> pucks = objectRegistry.getObjects(PUCK_TAG);
+        for (int i = 0; i < pucks.size(); i++) {
+            collideWithBricks((Ball) pucks.get(i));
+        }
+    }
+
+    /**
+     * Resolves the collisions of a ball with the bricks and the walls. In a versus game, the bricks
+     * the ball broke score for the player whose paddle hit it last.
+     *
+     * @param ball the ball (main ball or puck)
+     */
+    private void collideWithBricks(Ball ball) {
+        int bricksNum = bricksCounter.value();
+        brickField.collide(ball);
+        keepInsideWalls(ball);
+        GameObject lastPaddle = ball.getLastPaddle();
+        if (lockstep != null && lastPaddle != null) {
+            int player = lastPaddle == secondPaddle ?
+                    LockstepSession.JOINING_PLAYER : LockstepSession.HOST_PLAYER;
+            lockstepScores[player] += bricksNum - bricksCounter.value();
+        }
+    }
+
+    /**
+     * Bounces a ball that got past the inner edge of a wall while moving into it, mirroring its
+     * position back inside. A ball the engine already bounced off a wall moves away from it and is
+     * left alone, so this only catches balls that tunneled into or through a wall.
+     *
+     * @param ball the ball (main ball or puck) to check
+     */
+    private void keepInsideWalls(Ball ball) {
+        Vector2 topLeft = ball.getTopLeftCorner();
+        Vector2 velocity = ball.getVelocity();
+        float rightEdge = (int) windowDimensions.x() - WALL_WIDTH - ball.getDimensions().x();
+        if (topLeft.x() < WALL_WIDTH && velocity.x() < 0) {
+            ball.transform().setTopLeftCornerX(2 * WALL_WIDTH - topLeft.x());
+            ball.bounce(Vector2.RIGHT);
+        }
+        else if (topLeft.x() > rightEdge && velocity.x() > 0) {
+            ball.transform().setTopLeftCornerX(2 * rightEdge - topLeft.x());
+            ball.bounce(Vector2.LEFT);
+        }
+        if (topLeft.y() < WALL_WIDTH && velocity.y() < 0) {
+            ball.transform().setTopLeftCornerY(2 * WALL_WIDTH - topLeft.y());
+            ball.bounce(Vector2.DOWN);
+        }
     }
 
     /**
      * Updates the player's lives based on game events.
      */
     private void updateLife() {
-        for (GameObject gameObject:gameObjects()){
-            if (gameObject.getTag().equals(DROP_HEART_TAG) && ((Heart) gameObject).getIsHeartTaken()){
-                heartsManager.handleCatchHeart((Heart) gameObject);
+        List<GameObject> droppingHearts = objectRegistry.getObjects(DROP_HEART_TAG);
+        for (int i = droppingHearts.size() - 1; i >= 0; i--) {
+            Heart heart = (Heart) droppingHearts.get(i);
+            if (heart.getIsHeartTaken()){
+                heartsManager.handleCatchHeart(heart);
             }
         }
     }
@@ -394,17 +1394,28 @@ public class BrickerGameManager extends GameManager {
      */
     private void upadateExtraPaddle() {
         if(extraPaddleHitCounter.value()==0){
-            gameObjects().removeGameObject(extraPaddle);
+            removeObject(extraPaddle, Layer.DEFAULT);
         }
     }
 
     /**
-     * Clears objects that are no longer needed.
+     * Clears objects that are no longer needed: pucks and dropping hearts that left the screen.
      */
     private void clearObjects() {
-        for (GameObject object:gameObjects()){
-            if (object != null && object.getTopLeftCorner().y() > windowDimensions.y()) {
-                gameObjects().removeGameObject(object);
+        clearFallenObjects(objectRegistry.getObjects(PUCK_TAG));
+        clearFallenObjects(objectRegistry.getObjects(DROP_HEART_TAG));
+    }
+
+    /**
+     * Removes the objects of a registry list that fell below the bottom of the window.
+     *
+     * @param objects the registered objects to check
+     */
+    private void clearFallenObjects(List<GameObject> objects) {
+        for (int i = objects.size() - 1; i >= 0; i--) {
+            GameObject object = objects.get(i);
+            if (object.getTopLeftCorner().y() > windowDimensions.y()) {
+                removeObject(object, Layer.DEFAULT);
             }
         }
     }
@@ -414,10 +1425,11 @@ public class BrickerGameManager extends GameManager {
      * Checks if the game is over and handles the end game state.
      */
     private void checkIfGameOver() {
-        if (bricksCounter.value() == 0 || inputListener.isKeyPressed(KeyEvent.VK_W)){
+        if ((bricksCounter.value() == 0 && rowStreamer == null) || inputListener.isKeyPressed(KeyEvent.VK_W)){
             gameOver(true);
+            return;
         }
-        double ballHeight = ball.getCenter().y();
+        double ballHeight = ball.getTopLeftCorner().y() + ball.getDimensions().y() / 2;
         if (ballHeight > windowDimensions.y()) {
             heartsManager.decreaseHearts();
             if (heartsManager.hasMoreHearts()) {
@@ -430,11 +1442,30 @@ public class BrickerGameManager extends GameManager {
     }
 
     /**
-     * Ends the game and prompts the player to play again.
+     * Ends the game and prompts the player to play again. The game result is set in every mode, so no
+     * further tick runs on the finished board while the prompt is open or the reset is pending.
      *
      * @param isVictory true if the player won, false if he lost
      */
     private void gameOver(boolean isVictory) {
+        if (gameResult != GameResult.IN_PROGRESS) {
+            return;
+        }
+        if (inputRecorder != null) {
+            inputRecorder.finish();
+        }
+        if (rowStreamer != null) {
+            rowStreamer.close();
+            rowStreamer = null;
+        }
+        if (lockstep != null) {
+            endVersus();
+            return;
+        }
+        gameResult = isVictory ? GameResult.WIN : GameResult.LOSE;
+        if (isHeadless) {
+            return;
+        }
         String prompt = LOSE_PROMPT;
         if (isVictory)
             prompt = WIN_PROMPT;
@@ -446,21 +1477,267 @@ public class BrickerGameManager extends GameManager {
     }
 
     /**
-     * Creates multiple puck balls at the specified location.
+     * Seeds the game's random generator, so a session can be reproduced. Should be called before
+     * the game is initialized.
+     *
+     * @param seed the seed
+     */
+    public void setSeed(long seed) {
+        sessionSeed = seed;
+        random = new SnapshotRandom(seed);
+    }
+
+    /**
+     * Gets the seed of the session, from which every random decision of the game is drawn.
+     *
+     * @return the session seed
+     */
+    public long getSeed() {
+        return sessionSeed;
+    }
+
+    /**
+     * Gets the random generator of the session. Every random decision of the game, including the
+     * strategies of the bricks, must be drawn from it so the session can be reproduced from its seed.
+     *
+     * @return the session's random generator
+     */
+    public Random getRandom() {
+        return random;
+    }
+
+    /**
+     * Sets the range of the strategy roll of every brick, which controls the power-up mix:
+     * rolls 0-4 are special strategies and higher rolls are basic bricks. Should be called before
+     * the game is initialized.
+     *
+     * @param strategyRollRange the exclusive upper bound of the roll, at least 1
+     */
+    public void setStrategyRollRange(int strategyRollRange) {
+        this.strategyRollRange = strategyRollRange;
+    }
+
+    /**
+     * Gets the main ball.
+     *
+     * @return the main ball
+     */
+    public Ball getBall() {
+        return ball;
+    }
+
+    /**
+     * Gets the main paddle.
+     *
+     * @return the main paddle
+     */
+    public Paddle getMainPaddle() {
+        return mainPaddle;
+    }
+
+    /**
+     * Gets the brick field.
+     *
+     * @return the brick field
+     */
+    public BrickField getBrickField() {
+        return brickField;
+    }
+
+    /**
+     * Gets the number of lockstep ticks run in the current game.
+     *
+     * @return the number of ticks, 0 outside of a lockstep session
+     */
+    public int getLockstepTickNum() {
+        return lockstepTickNum;
+    }
+
+    /**
+     * Gets the score of a player of a versus game: the bricks broken by balls their paddle hit last.
+     *
+     * @param player LockstepSession.HOST_PLAYER or LockstepSession.JOINING_PLAYER
+     * @return the score
+     */
+    public int getLockstepScore(int player) {
+        return lockstepScores[player];
+    }
+
+    /**
+     * Gets the hearts manager, which owns the HUD.
+     *
+     * @return the hearts manager
+     */
+    public HeartsManager getHeartsManager() {
+        return heartsManager;
+    }
+
+    /**
+     * Gets the number of pucks currently in the game.
+     *
+     * @return the number of pucks
+     */
+    public int getPucksNum() {
+        return objectRegistry.count(PUCK_TAG);
+    }
+
+    /**
+     * Gets the result of the current game.
+     *
+     * @return IN_PROGRESS while the game runs, otherwise WIN, LOSE or DRAW
+     */
+    public GameResult getGameResult() {
+        return gameResult;
+    }
+
+    /**
+     * Gets the pool the pucks are taken from, for its hit/miss statistics, which accumulate over all
+     * the games of this manager.
+     *
+     * @return the puck pool
+     */
+    public PuckPool getPuckPool() {
+        return puckPool;
+    }
+
+    /**
+     * Creates multiple puck balls at the specified location, at the end of the frame.
      *
      * @param puckCenterLocation the center location for the new puck balls
      */
     public void createPuckBalls(Vector2 puckCenterLocation){
-        Renderable puckImage = imageReader.readImage(PUCK_PATH, true);
-        Sound collisionSound = soundReader.readSound(BLOP_PATH);
-        Vector2 puckDimensions = new Vector2(BALL_RADIUS*0.75f, BALL_RADIUS*0.75f);
-        for (int i = 0; i < NUM_OF_NEW_PUCKS; i++) {
-            Ball puck = new Ball(Vector2.ZERO, puckDimensions, puckImage, collisionSound);
-            puck.setVelocity(randomizePuckVelocity());
-            puck.setCenter(puckCenterLocation);
-            puck.setTag(PUCK_TAG);
-            gameObjects().addGameObject(puck);
+        commandQueue.add(CommandQueue.SPAWN_PUCKS, -1, puckCenterLocation.x(), puckCenterLocation.y());
+    }
+
+    /**
+     * Spawns multiple puck balls at the specified location, as many as the entity budget allows.
+     * The rest are merged into a faster puck or delayed, according to the budget's policy.
+     *
+     * @param puckCenterLocation the center location for the new puck balls
+     */
+    private void spawnPucks(Vector2 puckCenterLocation){
+        int spawnedNum = Math.min(NUM_OF_NEW_PUCKS, entityBudget.getPucksRoom(getPucksNum()));
+        Ball puck = null;
+        for (int i = 0; i < spawnedNum; i++) {
+            puck = spawnPuck(puckCenterLocation);
+        }
+        int excessNum = NUM_OF_NEW_PUCKS - spawnedNum;
+        if (excessNum == 0) {
+            return;
+        }
+        entityBudget.recordHit();
+        if (entityBudget.getPolicy() == EntityBudget.Policy.DELAY) {
+            delaySpawn(CommandQueue.SPAWN_PUCKS, excessNum, puckCenterLocation);
+            return;
+        }
+        List<GameObject> pucks = objectRegistry.getObjects(PUCK_TAG);
+        if (puck == null && pucks.isEmpty()) {
+            entityBudget.recordDropped(excessNum);
+            return;
+        }
+        mergePucks(puck != null ? puck : pucks.get(0), excessNum);
+    }
+
+    /**
+     * Spawns a single puck ball at the specified location, with a random direction.
+     *
+     * @param puckCenterLocation the center location for the new puck ball
+     * @return the new puck
+     */
+    private Ball spawnPuck(Vector2 puckCenterLocation) {
+        Ball puck = puckPool.acquire();
+        puck.setVelocity(randomizePuckVelocity());
+        puck.setCenter(puckCenterLocation);
+        addObject(puck, Layer.DEFAULT);
+        return puck;
+    }
+
+    /**
+     * Merges pucks that did not fit in the entity budget into a live puck, which gets faster for
+     * every merged puck, up to a maximum speed.
+     *
+     * @param puck      the live puck
+     * @param mergedNum the number of merged pucks
+     */
+    private void mergePucks(GameObject puck, int mergedNum) {
+        float speed = puck.getVelocity().magnitude();
+        if (speed > 0) {
+            float mergedSpeed = Math.min(speed * (1 + MERGE_SPEEDUP * mergedNum), MAX_MERGED_SPEED);
+            puck.setVelocity(puck.getVelocity().mult(mergedSpeed / speed));
+        }
+        entityBudget.recordMerged(mergedNum);
+    }
+
+    /**
+     * Checks whether a heart can be dropped within the entity budget. A heart that does not fit is
+     * delayed under the DELAY policy, and otherwise not spawned at all, and counted as dropped.
+     *
+     * @param extraLifeLocation the location to drop the heart from
+     * @return true if the heart should be dropped now
+     */
+    public boolean admitDroppingHeart(Vector2 extraLifeLocation) {
+        if (entityBudget.getDroppingHeartsRoom(objectRegistry.count(DROP_HEART_TAG)) > 0) {
+            return true;
+        }
+        entityBudget.recordHit();
+        if (entityBudget.getPolicy() == EntityBudget.Policy.DELAY) {
+            delaySpawn(CommandQueue.DROP_HEART, 1, extraLifeLocation);
+        }
+        else {
+            entityBudget.recordDropped(1);
+        }
+        return false;
+    }
+
+    /**
+     * Holds back a spawn that did not fit in the entity budget, unless too many spawns are held back.
+     *
+     * @param type       SPAWN_PUCKS or DROP_HEART
+     * @param objectsNum the number of objects to spawn
+     * @param location   the location to spawn them at
+     */
+    private void delaySpawn(int type, int objectsNum, Vector2 location) {
+        if (delayedSpawns.size() >= MAX_DELAYED_SPAWNS) {
+            entityBudget.recordDropped(objectsNum);
+            return;
+        }
+        delayedSpawns.add(type, objectsNum, location.x(), location.y());
+        entityBudget.recordDelayed(objectsNum);
+    }
+
+    /**
+     * Spawns the held back objects that fit in the entity budget now, in the order they were held
+     * back, and keeps holding back the rest. Retries are not counted as new budget hits.
+     */
+    private void retryDelayedSpawns() {
+        if (delayedSpawns.size() == 0) {
+            return;
+        }
+        CommandQueue retrying = delayedSpawns;
+        delayedSpawns = retriedSpawns;
+        retriedSpawns = retrying;
+        for (int i = 0; i < retrying.size(); i++) {
+            Vector2 location = new Vector2(retrying.x(i), retrying.y(i));
+            int objectsNum = retrying.cell(i);
+            int spawnedNum;
+            if (retrying.type(i) == CommandQueue.SPAWN_PUCKS) {
+                spawnedNum = Math.min(objectsNum, entityBudget.getPucksRoom(getPucksNum()));
+                for (int j = 0; j < spawnedNum; j++) {
+                    spawnPuck(location);
+                }
+            }
+            else {
+                spawnedNum = Math.min(objectsNum,
+                        entityBudget.getDroppingHeartsRoom(objectRegistry.count(DROP_HEART_TAG)));
+                for (int j = 0; j < spawnedNum; j++) {
+                    heartsManager.heartDroping(location);
+                }
+            }
+            if (spawnedNum < objectsNum) {
+                delayedSpawns.add(retrying.type(i), objectsNum - spawnedNum, location.x(), location.y());
+            }
         }
+        retrying.clear();
     }
 
     /**
@@ -476,20 +1753,34 @@ public class BrickerGameManager extends GameManager {
     }
 
     /**
-     * Locates and initializes the extra paddle.
+     * Locates and initializes the extra paddle, at the end of the frame.
      */
     public void locateExtraPaddle(){
+        commandQueue.requestExtraPaddle();
+    }
+
+    /**
+     * Places the extra paddle in the middle of the screen, unless it is already in the game.
+     */
+    private void placeExtraPaddle(){
         if (extraPaddleHitCounter.value()<=0){
             extraPaddle.setCenter(windowDimensions.mult(0.5f));
-            gameObjects().addGameObject(extraPaddle);
+            addObject(extraPaddle, Layer.DEFAULT);
             extraPaddleHitCounter.increaseBy(EXTRA_PADDLE_MODE_COLLISIONS);
         }
     }
 
     /**
-     * Changes the camera mode to follow the ball.
+     * Changes the camera mode to follow the ball, at the end of the frame.
      */
     public void changeCameraMode() {
+        commandQueue.requestCameraChange();
+    }
+
+    /**
+     * Sets a camera following the ball, unless one is already set.
+     */
+    private void followBallWithCamera() {
         if (camera() != null) {
             return;
         }
@@ -498,20 +1789,21 @@ public class BrickerGameManager extends GameManager {
     }
 
     /**
-     * Creates an extra life at the specified location.
+     * Creates an extra life at the specified location, at the end of the frame.
      *
      * @param extraLifeLocation the location to create the extra life
      */
     public void createExtraLife(Vector2 extraLifeLocation) {
-        heartsManager.heartDroping(extraLifeLocation);
+        commandQueue.add(CommandQueue.DROP_HEART, -1, extraLifeLocation.x(), extraLifeLocation.y());
     }
 
     /**
      * The main method to run the game.
      *
      * @param args command-line arguments for the game
+     * @throws IOException if the recording file set by RECORD_FILE_PROPERTY cannot be created
      */
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
         BrickerGameManager brickerGameManager;
         if (args.length ==2) {
             brickerGameManager = new BrickerGameManager(WINDOW_NAME, new Vector2(WINDOW_WIDTH, WINDOW_HEIGHT),
@@ -520,7 +1812,28 @@ public class BrickerGameManager extends GameManager {
         else{
             brickerGameManager = new BrickerGameManager(WINDOW_NAME,
                     new Vector2(WINDOW_WIDTH, WINDOW_HEIGHT));
+            if (args.length == 1) {
+                brickerGameManager.loadLevel(args[0]);
+            }
+        }
+        brickerGameManager.setEndless(Boolean.getBoolean(ENDLESS_PROPERTY));
+        String budgetPolicyName = System.getProperty(BUDGET_PROPERTY);
+        if ("off".equalsIgnoreCase(budgetPolicyName)) {
+            brickerGameManager.setEntityBudget(EntityBudget.unlimited());
+        }
+        else if (budgetPolicyName != null) {
+            brickerGameManager.setEntityBudget(
+                    new EntityBudget(EntityBudget.Policy.valueOf(budgetPolicyName.toUpperCase())));
+        }
+        String botSkillName = System.getProperty(BOT_PROPERTY);
+        if (botSkillName != null) {
+            brickerGameManager.setBotSkill(BotSkill.valueOf(botSkillName.toUpperCase()));
+        }
+        String recordingPath = System.getProperty(RECORD_FILE_PROPERTY);
+        if (recordingPath != null) {
+            brickerGameManager.startRecording(recordingPath);
         }
         brickerGameManager.run();
+        brickerGameManager.stopRecording();
     }
 }
@@ -0,0 +1,149 @@
+package bricker.main;
+
+import java.util.Arrays;
+
+/**
+ * CommandQueue collects the world changes requested by collision strategies during a frame, as
+ * compact commands in primitive arrays, so they are applied together at the end of the frame.
+ * The extra paddle and camera requests are idempotent within a frame, so they are merged into flags.
+ */
+public class CommandQueue {
+
+    /**
+     * A command finishing the removal of a brick: waking its neighbours.
+     */
+    public static final int REMOVE_BRICK = 0;
+
+    /**
+     * A command spawning pucks at a location.
+     */
+    public static final int SPAWN_PUCKS = 1;
+
+    /**
+     * A command dropping a heart from a location.
+     */
+    public static final int DROP_HEART = 2;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int[] types = new int[INITIAL_CAPACITY];
+    private int[] cells = new int[INITIAL_CAPACITY];
+    private float[] xs = new float[INITIAL_CAPACITY];
+    private float[] ys = new float[INITIAL_CAPACITY];
+    private int size = 0;
+    private boolean isExtraPaddleRequested = false;
+    private boolean isCameraChangeRequested = false;
+
+    /**
+     * Adds a command.
+     *
+     * @param type the type of the command
+     * @param cell the brick cell of the command, the number of objects of a delayed spawn, or -1
+     * @param x    the x coordinate of the command's location, or 0
+     * @param y    the y coordinate of the command's location, or 0
+     */
+    public void add(int type, int cell, float x, float y) {
+        if (size == types.length) {
+            int capacity = size * 2;
+            types = Arrays.copyOf(types, capacity);
+            cells = Arrays.copyOf(cells, capacity);
+            xs = Arrays.copyOf(xs, capacity);
+            ys = Arrays.copyOf(ys, capacity);
+        }
+        types[size] = type;
+        cells[size] = cell;
+        xs[size] = x;
+        ys[size] = y;
+        size++;
+    }
+
+    /**
+     * Requests the extra paddle for the end of the frame.
+     */
+    public void requestExtraPaddle() {
+        isExtraPaddleRequested = true;
+    }
+
+    /**
+     * Requests the camera change for the end of the frame.
+     */
+    public void requestCameraChange() {
+        isCameraChangeRequested = true;
+    }
+
+    /**
+     * Checks whether the extra paddle was requested in this frame.
+     *
+     * @return true if it was requested
+     */
+    public boolean isExtraPaddleRequested() {
+        return isExtraPaddleRequested;
+    }
+
+    /**
+     * Checks whether the camera change was requested in this frame.
+     *
+     * @return true if it was requested
+     */
+    public boolean isCameraChangeRequested() {
+        return isCameraChangeRequested;
+    }
+
+    /**
+     * Gets the number of queued commands.
+     *
+     * @return the number of commands
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the type of a command.
+     *
+     * @param i the index of the command
+     * @return the type
+     */
+    public int type(int i) {
+        return types[i];
+    }
+
+    /**
+     * Gets the brick cell of a command, or the number of objects of a delayed spawn.
+     *
+     * @param i the index of the command
+     * @return the cell index or number of objects
+     */
+    public int cell(int i) {
+        return cells[i];
+    }
+
+    /**
+     * Gets the x coordinate of a command's location.
+     *
+     * @param i the index of the command
+     * @return the x coordinate
+     */
+    public float x(int i) {
+        return xs[i];
+    }
+
+    /**
+     * Gets the y coordinate of a command's location.
+     *
+     * @param i the index of the command
+     * @return the y coordinate
+     */
+    public float y(int i) {
+        return ys[i];
+    }
+
+    /**
+     * Removes all the commands and requests, keeping the allocated arrays.
+     */
+    public void clear() {
+        size = 0;
+        isExtraPaddleRequested = false;
+        isCameraChangeRequested = false;
+    }
+}
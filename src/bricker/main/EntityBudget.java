@@ -0,0 +1,233 @@
+package bricker.main;
+
+import java.nio.ByteBuffer;
+
+/**
+ * EntityBudget limits how many pucks and dropping hearts can be alive at once, so that a chain of
+ * power-up bricks cannot flood the game with objects. It chooses what happens to a spawn above the
+ * budget and counts how often the budget was hit.
+ */
+public class EntityBudget {
+
+    /**
+     * What happens to the objects of a spawn that do not fit in the budget.
+     */
+    public enum Policy {
+        /**
+         * Excess pucks are merged into a single faster puck. Hearts cannot be merged, so excess hearts
+         * are dropped (not spawned).
+         */
+        MERGE,
+        /**
+         * Excess objects are held back, and spawned in order once there is room for them.
+         */
+        DELAY
+    }
+
+    /**
+     * The default maximum number of live pucks.
+     */
+    public static final int DEFAULT_MAX_PUCKS_NUM = 256;
+
+    /**
+     * The default maximum number of dropping hearts.
+     */
+    public static final int DEFAULT_MAX_DROPPING_HEARTS_NUM = 16;
+
+    /**
+     * The size, in bytes, of the counters written by writeCounters().
+     */
+    public static final int COUNTERS_SIZE = 4 * Integer.BYTES;
+
+    private final int maxPucksNum;
+    private final int maxDroppingHeartsNum;
+    private final Policy policy;
+    //counters
+    private int hitsNum = 0;
+    private int mergedNum = 0;
+    private int delayedNum = 0;
+    private int droppedNum = 0;
+
+    /**
+     * Constructs an EntityBudget.
+     *
+     * @param maxPucksNum          the maximum number of live pucks
+     * @param maxDroppingHeartsNum the maximum number of dropping hearts
+     * @param policy               what happens to the objects of a spawn above the budget
+     */
+    public EntityBudget(int maxPucksNum, int maxDroppingHeartsNum, Policy policy) {
+        this.maxPucksNum = maxPucksNum;
+        this.maxDroppingHeartsNum = maxDroppingHeartsNum;
+        this.policy = policy;
+    }
+
+    /**
+     * Constructs an EntityBudget with the default limits.
+     *
+     * @param policy what happens to the objects of a spawn above the budget
+     */
+    public EntityBudget(Policy policy) {
+        this(DEFAULT_MAX_PUCKS_NUM, DEFAULT_MAX_DROPPING_HEARTS_NUM, policy);
+    }
+
+    /**
+     * Creates a budget that is never hit, for stress runs.
+     *
+     * @return the unlimited budget
+     */
+    public static EntityBudget unlimited() {
+        return new EntityBudget(Integer.MAX_VALUE, Integer.MAX_VALUE, Policy.MERGE);
+    }
+
+    /**
+     * Gets the number of pucks that can still be spawned.
+     *
+     * @param livePucksNum the number of live pucks
+     * @return the number of pucks that fit in the budget
+     */
+    public int getPucksRoom(int livePucksNum) {
+        return Math.max(0, maxPucksNum - livePucksNum);
+    }
+
+    /**
+     * Gets the number of hearts that can still be dropped.
+     *
+     * @param droppingHeartsNum the number of dropping hearts
+     * @return the number of hearts that fit in the budget
+     */
+    public int getDroppingHeartsRoom(int droppingHeartsNum) {
+        return Math.max(0, maxDroppingHeartsNum - droppingHeartsNum);
+    }
+
+    /**
+     * Gets the maximum number of live pucks.
+     *
+     * @return the maximum number of pucks
+     */
+    public int getMaxPucksNum() {
+        return maxPucksNum;
+    }
+
+    /**
+     * Gets the maximum number of dropping hearts.
+     *
+     * @return the maximum number of dropping hearts
+     */
+    public int getMaxDroppingHeartsNum() {
+        return maxDroppingHeartsNum;
+    }
+
+    /**
+     * Gets the policy applied to spawns above the budget.
+     *
+     * @return the policy
+     */
+    public Policy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Counts a spawn that did not fit in the budget.
+     */
+    public void recordHit() {
+        hitsNum++;
+    }
+
+    /**
+     * Counts objects that were merged instead of spawned.
+     *
+     * @param objectsNum the number of objects
+     */
+    public void recordMerged(int objectsNum) {
+        mergedNum += objectsNum;
+    }
+
+    /**
+     * Counts objects that were held back to be spawned later.
+     *
+     * @param objectsNum the number of objects
+     */
+    public void recordDelayed(int objectsNum) {
+        delayedNum += objectsNum;
+    }
+
+    /**
+     * Counts objects that were neither spawned, merged nor delayed, because there was nothing to merge
+     * them into or no room left to hold them back.
+     *
+     * @param objectsNum the number of objects
+     */
+    public void recordDropped(int objectsNum) {
+        droppedNum += objectsNum;
+    }
+
+    /**
+     * Gets the number of spawns that did not fit in the budget.
+     *
+     * @return the number of budget hits
+     */
+    public int getHitsNum() {
+        return hitsNum;
+    }
+
+    /**
+     * Gets the number of objects merged instead of spawned.
+     *
+     * @return the number of merged objects
+     */
+    public int getMergedNum() {
+        return mergedNum;
+    }
+
+    /**
+     * Gets the number of objects held back to be spawned later.
+     *
+     * @return the number of delayed objects
+     */
+    public int getDelayedNum() {
+        return delayedNum;
+    }
+
+    /**
+     * Gets the number of objects that were dropped.
+     *
+     * @return the number of dropped objects
+     */
+    public int getDroppedNum() {
+        return droppedNum;
+    }
+
+    /**
+     * Writes the counters of the budget, as part of a saved game state.
+     *
+     * @param buffer the buffer to write to
+     */
+    public void writeCounters(ByteBuffer buffer) {
+        buffer.putInt(hitsNum);
+        buffer.putInt(mergedNum);
+        buffer.putInt(delayedNum);
+        buffer.putInt(droppedNum);
+    }
+
+    /**
+     * Reads counters written by writeCounters().
+     *
+     * @param buffer the buffer to read from
+     */
+    public void readCounters(ByteBuffer buffer) {
+        hitsNum = buffer.getInt();
+        mergedNum = buffer.getInt();
+        delayedNum = buffer.getInt();
+        droppedNum = buffer.getInt();
+    }
+
+    /**
+     * Formats the limits and counters of the budget.
+     *
+     * @return the report
+     */
+    public String report() {
+        return String.format("budget pucks=%d hearts=%d policy=%s: hits=%d merged=%d delayed=%d dropped=%d%n",
+                maxPucksNum, maxDroppingHeartsNum, policy, hitsNum, mergedNum, delayedNum, droppedNum);
+    }
+}
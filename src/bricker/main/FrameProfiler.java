@@ -0,0 +1,129 @@
+package bricker.main;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * FrameProfiler times the phases of every game frame into latency histograms, and, when asked to,
+ * periodically appends their p50/p99/max to a local file from a background thread. It uses only
+ * System.nanoTime and array updates per phase, so it is cheap enough to leave on.
+ */
+public class FrameProfiler {
+
+    /**
+     * The system property naming the dump file. Dumping is off when it is unset or empty.
+     */
+    public static final String DUMP_FILE_PROPERTY = "bricker.timings.file";
+
+    private static final int DUMP_INTERVAL_FRAMES = 600;
+    private static final double NANOS_IN_MICRO = 1000.0;
+
+    private final String[] phaseNames;
+    private final LatencyHistogram[] histograms;
+    private final String dumpFile;
+    private ExecutorService dumpWriter;
+    private int framesSinceDump = 0;
+
+    /**
+     * Constructs a FrameProfiler with one histogram per phase.
+     *
+     * @param phaseNames the names of the phases, in the order they run
+     */
+    public FrameProfiler(String... phaseNames) {
+        this.phaseNames = phaseNames;
+        this.histograms = new LatencyHistogram[phaseNames.length];
+        for (int i = 0; i < phaseNames.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+        this.dumpFile = System.getProperty(DUMP_FILE_PROPERTY, "");
+    }
+
+    /**
+     * Records the end of a phase.
+     *
+     * @param phase     the index of the phase
+     * @param startNanos the System.nanoTime at which the phase started
+     * @return the current System.nanoTime, to be used as the start of the next phase
+     */
+    public long endPhase(int phase, long startNanos) {
+        long now = System.nanoTime();
+        histograms[phase].record(now - startNanos);
+        return now;
+    }
+
+    /**
+     * Marks the end of a frame, and dumps and resets the histograms every DUMP_INTERVAL_FRAMES frames.
+     */
+    public void endFrame() {
+        framesSinceDump++;
+        if (framesSinceDump >= DUMP_INTERVAL_FRAMES) {
+            framesSinceDump = 0;
+            if (!dumpFile.isEmpty()) {
+                dump();
+            }
+            reset();
+        }
+    }
+
+    /**
+     * Appends the current statistics of every phase to the dump file. The report is built on the
+     * calling thread, and written by a background daemon thread so the frame never waits for the file.
+     */
+    private void dump() {
+        if (dumpWriter == null) {
+            dumpWriter = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "frame-timings-writer");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        String report = report();
+        dumpWriter.execute(() -> {
+            try (PrintWriter writer = new PrintWriter(new FileWriter(dumpFile, true))) {
+                writer.print(report);
+            }
+            catch (IOException e) {
+                System.err.println("Could not write frame timings to " + dumpFile + ": " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Builds a report of the statistics of every phase since the last reset.
+     *
+     * @return one line per phase with its count, p50, p99 and max, in microseconds
+     */
+    public String report() {
+        StringBuilder report = new StringBuilder();
+        report.append("frame timings at ").append(System.currentTimeMillis()).append(" ms\n");
+        for (int i = 0; i < phaseNames.length; i++) {
+            LatencyHistogram histogram = histograms[i];
+            report.append(String.format("  %-20s n=%-6d p50=%9.1fus p99=%9.1fus max=%9.1fus%n", phaseNames[i],
+                    histogram.getCount(), histogram.percentile(50) / NANOS_IN_MICRO,
+                    histogram.percentile(99) / NANOS_IN_MICRO, histogram.getMax() / NANOS_IN_MICRO));
+        }
+        return report.toString();
+    }
+
+    /**
+     * Gets the histogram of a phase.
+     *
+     * @param phase the index of the phase
+     * @return the histogram
+     */
+    public LatencyHistogram getHistogram(int phase) {
+        return histograms[phase];
+    }
+
+    /**
+     * Clears the histograms of all the phases.
+     */
+    public void reset() {
+        for (LatencyHistogram histogram : histograms) {
+            histogram.reset();
+        }
+    }
+}
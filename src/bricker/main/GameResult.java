@@ -0,0 +1,26 @@
+package bricker.main;
+
+/**
+ * GameResult represents the state of a Bricker game as seen from outside the game loop.
+ */
+public enum GameResult {
+    /**
+     * The game is still running.
+     */
+    IN_PROGRESS,
+
+    /**
+     * All the bricks were destroyed (or the win key was pressed).
+     */
+    WIN,
+
+    /**
+     * The player ran out of hearts, or scored less than the other player of a versus game.
+     */
+    LOSE,
+
+    /**
+     * Both players of a versus game scored the same.
+     */
+    DRAW
+}
@@ -0,0 +1,138 @@
+package bricker.main;
+
+import danogl.gui.UserInputListener;
+import danogl.util.Vector2;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * HeadlessInput is a scripted keyboard state for running the game without a window.
+ * Keys are pressed and released by code, and the state is exposed to the game objects
+ * as a regular UserInputListener that reads the key array directly, so polling it allocates nothing.
+ */
+public class HeadlessInput implements UserInputListener {
+
+    /**
+     * The number of key codes tracked, enough for every java.awt.event.KeyEvent constant in use.
+     */
+    private static final int KEYS_NUM = 256;
+
+    private final boolean[] pressedKeys = new boolean[KEYS_NUM];
+
+    /**
+     * Constructs a HeadlessInput with no keys pressed.
+     */
+    public HeadlessInput() {
+    }
+
+    /**
+     * Sets whether a key is pressed.
+     *
+     * @param keyCode   the key code, as in java.awt.event.KeyEvent
+     * @param isPressed true to press the key, false to release it
+     */
+    public void setKeyPressed(int keyCode, boolean isPressed) {
+        if (keyCode >= 0 && keyCode < KEYS_NUM) {
+            pressedKeys[keyCode] = isPressed;
+        }
+    }
+
+    /**
+     * Checks whether a key is currently pressed.
+     *
+     * @param keyCode the key code, as in java.awt.event.KeyEvent
+     * @return true if the key is pressed, false otherwise
+     */
+    @Override
+    public boolean isKeyPressed(int keyCode) {
+        return keyCode >= 0 && keyCode < KEYS_NUM && pressedKeys[keyCode];
+    }
+
+    /**
+     * Gets the codes of the pressed keys.
+     *
+     * @return a new set of the pressed key codes
+     */
+    @Override
+    public Set<Integer> pressedKeys() {
+        Set<Integer> keyCodes = new HashSet<>();
+        for (int keyCode = 0; keyCode < KEYS_NUM; keyCode++) {
+            if (pressedKeys[keyCode]) {
+                keyCodes.add(keyCode);
+            }
+        }
+        return keyCodes;
+    }
+
+    /**
+     * Key presses are not tracked per frame in headless mode.
+     *
+     * @param keyCode the key code, as in java.awt.event.KeyEvent
+     * @return false
+     */
+    @Override
+    public boolean wasKeyPressedThisFrame(int keyCode) {
+        return false;
+    }
+
+    /**
+     * Key releases are not tracked per frame in headless mode.
+     *
+     * @param keyCode the key code, as in java.awt.event.KeyEvent
+     * @return false
+     */
+    @Override
+    public boolean wasKeyReleasedThisFrame(int keyCode) {
+        return false;
+    }
+
+    /**
+     * There is no mouse in headless mode.
+     *
+     * @param button the mouse button
+     * @return false
+     */
+    @Override
+    public boolean isMouseButtonPressed(int button) {
+        return false;
+    }
+
+    /**
+     * There is no mouse in headless mode.
+     *
+     * @return the zero vector
+     */
+    @Override
+    public Vector2 getMouseScreenPos() {
+        return Vector2.ZERO;
+    }
+
+    /**
+     * Presses and releases the recorded keys according to a key mask.
+     *
+     * @param keyMask the mask of the recorded keys, see InputRecorder.keyMask
+     */
+    public void applyKeyMask(int keyMask) {
+        for (int i = 0; i < InputRecorder.RECORDED_KEYS.length; i++) {
+            setKeyPressed(InputRecorder.RECORDED_KEYS[i], (keyMask & (1 << i)) != 0);
+        }
+    }
+
+    /**
+     * Releases all the keys.
+     */
+    public void releaseAll() {
+        Arrays.fill(pressedKeys, false);
+    }
+
+    /**
+     * Gets the input listener backed by this scripted state.
+     *
+     * @return the input listener to hand to the game, this scripted state itself
+     */
+    public UserInputListener getInputListener() {
+        return this;
+    }
+}
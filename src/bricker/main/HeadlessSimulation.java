@@ -0,0 +1,149 @@
+package bricker.main;
+
+import danogl.util.Vector2;
+
+/**
+ * HeadlessSimulation runs a BrickerGameManager without a window, dialogs or audio.
+ * The game is stepped with a fixed delta time as fast as the CPU allows, until the game
+ * ends or a frame limit is reached.
+ */
+public class HeadlessSimulation {
+
+    /**
+     * The default fixed delta time, in seconds, of a single simulated frame.
+     */
+    public static final float DEFAULT_FIXED_DELTA = 1f / 60;
+
+    /**
+     * The default maximum number of frames to simulate.
+     */
+    public static final int DEFAULT_MAX_FRAMES = 100_000;
+
+    private static final String WINDOW_NAME = "bricker-headless";
+    private static final double NANOS_IN_SECOND = 1e9;
+
+    private final BrickerGameManager gameManager;
+    private final HeadlessInput input;
+    private final float fixedDelta;
+    private int framesNum = 0;
+    private long elapsedNanos = 0;
+
+    /**
+     * Constructs a HeadlessSimulation of a new game with the given number of bricks.
+     *
+     * @param rowsNumsBricks the number of rows of bricks
+     * @param colsNumBricks  the number of columns of bricks
+     * @param fixedDelta     the delta time, in seconds, passed to every update
+     */
+    public HeadlessSimulation(int rowsNumsBricks, int colsNumBricks, float fixedDelta) {
+        this(new BrickerGameManager(WINDOW_NAME,
+                new Vector2(BrickerGameManager.WINDOW_WIDTH, BrickerGameManager.WINDOW_HEIGHT),
+                rowsNumsBricks, colsNumBricks), fixedDelta);
+    }
+
+    /**
+     * Constructs a HeadlessSimulation of the given game manager, and initializes it headless.
+     *
+     * @param gameManager the game manager to simulate, not yet initialized
+     * @param fixedDelta  the delta time, in seconds, passed to every update
+     */
+    public HeadlessSimulation(BrickerGameManager gameManager, float fixedDelta) {
+        this.gameManager = gameManager;
+        this.fixedDelta = fixedDelta;
+        this.input = new HeadlessInput();
+        gameManager.initializeHeadless(input.getInputListener());
+    }
+
+    /**
+     * Simulates a single frame.
+     *
+     * @return true if the game is still in progress after the frame, false otherwise
+     */
+    public boolean step() {
+        long start = System.nanoTime();
+        gameManager.update(fixedDelta);
+        elapsedNanos += System.nanoTime() - start;
+        framesNum++;
+        return gameManager.getGameResult() == GameResult.IN_PROGRESS;
+    }
+
+    /**
+     * Simulates frames until the game ends or the frame limit is reached.
+     *
+     * @param maxFrames the maximum number of frames to simulate
+     * @return the result of the game, IN_PROGRESS if the frame limit was reached first
+     */
+    public GameResult run(int maxFrames) {
+        for (int i = 0; i < maxFrames; i++) {
+            if (!step()) {
+                break;
+            }
+        }
+        return gameManager.getGameResult();
+    }
+
+    /**
+     * Gets the simulated game manager.
+     *
+     * @return the game manager
+     */
+    public BrickerGameManager getGameManager() {
+        return gameManager;
+    }
+
+    /**
+     * Gets the scripted input of the simulated game.
+     *
+     * @return the scripted input
+     */
+    public HeadlessInput getInput() {
+        return input;
+    }
+
+    /**
+     * Gets the number of frames simulated so far.
+     *
+     * @return the number of frames
+     */
+    public int getFramesNum() {
+        return framesNum;
+    }
+
+    /**
+     * Gets the simulation speed, measured over the update calls only.
+     *
+     * @return the number of simulated frames per wall-clock second
+     */
+    public double getFramesPerSecond() {
+        if (elapsedNanos == 0) {
+            return 0;
+        }
+        return framesNum * NANOS_IN_SECOND / elapsedNanos;
+    }
+
+    /**
+     * Runs a headless game and prints the simulation speed and the final result.
+     *
+     * @param args optional: [bricks in a row] [bricks in a column] [max frames]
+     */
+    public static void main(String[] args) {
+        int maxFrames = DEFAULT_MAX_FRAMES;
+        if (args.length >= 3) {
+            maxFrames = Integer.parseInt(args[2]);
+        }
+        HeadlessSimulation simulation;
+        if (args.length >= 2) {
+            simulation = new HeadlessSimulation(Integer.parseInt(args[0]), Integer.parseInt(args[1]),
+                    DEFAULT_FIXED_DELTA);
+        }
+        else {
+            simulation = new HeadlessSimulation(new BrickerGameManager(WINDOW_NAME,
+                    new Vector2(BrickerGameManager.WINDOW_WIDTH, BrickerGameManager.WINDOW_HEIGHT)),
+                    DEFAULT_FIXED_DELTA);
+        }
+        GameResult result = simulation.run(maxFrames);
+        System.out.printf("frames: %d, frames/sec: %.1f, result: %s%n",
+                simulation.getFramesNum(), simulation.getFramesPerSecond(), result);
+        System.out.print(simulation.getGameManager().getEntityBudget().report());
+    }
+}
@@ -0,0 +1,304 @@
+package bricker.main;
+
+import bricker.gameobjects.BotSkill;
+import danogl.gui.UserInputListener;
+
+import java.awt.event.KeyEvent;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * InputRecorder logs a game session to a compact binary file, so it can be replayed headless
+ * frame by frame. The file holds the session seed and every setting that changes how the game
+ * plays, then a stream of events that are written only when something changes: the recorded key
+ * state, the frame delta time, and periodic state checksums used to verify the replay.
+ *
+ * <p>File layout: magic, version, seed (long), rows (int), cols (int), strategy roll range (int),
+ * mode flags (byte: ENDLESS_FLAG, LEVEL_FLAG, BOT_FLAG), the level path (UTF) if LEVEL_FLAG is set,
+ * the bot skill ordinal (byte) if BOT_FLAG is set, the entity budget's maximum pucks (int), maximum
+ * dropping hearts (int) and policy ordinal (byte), then events. Every event is a varint gap in frames since the previous event, a type byte and
+ * its payload: KEYS (a key mask byte), DELTA (the float bits of the delta time), CHECKSUM (an int)
+ * and END (no payload, at the frame after the last one).</p>
+ *
+ * <p>The recording is also finished by a shutdown hook, so a session whose window was closed mid-game
+ * still ends with its buffered events and an END event. The writing methods are synchronized for the
+ * hook, which is the only other thread that touches the recorder.</p>
+ */
+public class InputRecorder {
+
+    /**
+     * The magic number at the start of every recording.
+     */
+    public static final int MAGIC = 0x42524B52;
+
+    /**
+     * The version of the recording format.
+     */
+    public static final byte VERSION = 2;
+
+    /**
+     * The mode flag of an endless game.
+     */
+    public static final int ENDLESS_FLAG = 1;
+
+    /**
+     * The mode flag of a game played on a level file.
+     */
+    public static final int LEVEL_FLAG = 1 << 1;
+
+    /**
+     * The mode flag of a game whose main paddle is played by a bot.
+     */
+    public static final int BOT_FLAG = 1 << 2;
+
+    /**
+     * The event type marking the end of the recording.
+     */
+    public static final byte END_EVENT = 0;
+
+    /**
+     * The event type of a change in the recorded keys.
+     */
+    public static final byte KEYS_EVENT = 1;
+
+    /**
+     * The event type of a change in the frame delta time.
+     */
+    public static final byte DELTA_EVENT = 2;
+
+    /**
+     * The event type of a state checksum taken at the end of a frame.
+     */
+    public static final byte CHECKSUM_EVENT = 3;
+
+    /**
+     * The keys that are recorded, in the order of their bits in the key mask.
+     */
+    public static final int[] RECORDED_KEYS = {KeyEvent.VK_LEFT, KeyEvent.VK_RIGHT, KeyEvent.VK_W};
+
+    /**
+     * The number of frames between two state checksums.
+     */
+    public static final int CHECKSUM_INTERVAL = 60;
+
+    private static final int VARINT_PAYLOAD_BITS = 7;
+    private static final int VARINT_PAYLOAD_MASK = 0x7F;
+    private static final int VARINT_CONTINUE_BIT = 0x80;
+
+    private final DataOutputStream out;
+    private final Thread shutdownHook = new Thread(this::finish, "input-recorder-finish");
+    private boolean isOpen = true;
+    private boolean hasHeader = false;
+    private int framesNum = 0;
+    private int lastEventFrame = 0;
+    private int lastKeyMask = -1;
+    private int lastDeltaBits = 0;
+    private boolean hasDelta = false;
+
+    /**
+     * Constructs an InputRecorder writing to a file.
+     *
+     * @param recordingPath the path of the recording file
+     * @throws IOException if the file cannot be created
+     */
+    public InputRecorder(String recordingPath) throws IOException {
+        out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(recordingPath)));
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    /**
+     * Builds the key mask of the recorded keys.
+     *
+     * @param inputListener the input listener of the game
+     * @return a mask with bit i set if RECORDED_KEYS[i] is pressed
+     */
+    public static int keyMask(UserInputListener inputListener) {
+        int keyMask = 0;
+        for (int i = 0; i < RECORDED_KEYS.length; i++) {
+            if (inputListener.isKeyPressed(RECORDED_KEYS[i])) {
+                keyMask |= 1 << i;
+            }
+        }
+        return keyMask;
+    }
+
+    /**
+     * Checks whether the header has been written.
+     *
+     * @return true if the recording has started
+     */
+    public synchronized boolean hasStarted() {
+        return hasHeader;
+    }
+
+    /**
+     * Writes the header of the recording.
+     *
+     * @param seed              the session seed
+     * @param rowsNum           the number of rows of bricks
+     * @param colsNum           the number of columns of bricks
+     * @param strategyRollRange the range of the brick strategy roll
+     * @param isEndless         true if the game is endless
+     * @param levelPath         the path of the loaded level file, or null for a random board
+     * @param botSkill          the skill of the bot playing the main paddle, or null
+     * @param entityBudget      the budget limiting the live pucks and dropping hearts
+     */
+    public synchronized void start(long seed, int rowsNum, int colsNum, int strategyRollRange,
+                                   boolean isEndless, String levelPath, BotSkill botSkill,
+                                   EntityBudget entityBudget) {
+        try {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeLong(seed);
+            out.writeInt(rowsNum);
+            out.writeInt(colsNum);
+            out.writeInt(strategyRollRange);
+            int flags = (isEndless ? ENDLESS_FLAG : 0) | (levelPath != null ? LEVEL_FLAG : 0)
+                    | (botSkill != null ? BOT_FLAG : 0);
+            out.writeByte(flags);
+            if (levelPath != null) {
+                out.writeUTF(levelPath);
+            }
+            if (botSkill != null) {
+                out.writeByte(botSkill.ordinal());
+            }
+            out.writeInt(entityBudget.getMaxPucksNum());
+            out.writeInt(entityBudget.getMaxDroppingHeartsNum());
+            out.writeByte(entityBudget.getPolicy().ordinal());
+            hasHeader = true;
+        }
+        catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    /**
+     * Records the input of a frame, before the frame is updated.
+     *
+     * @param keyMask   the mask of the recorded keys
+     * @param deltaTime the delta time the frame is updated with
+     */
+    public synchronized void recordFrame(int keyMask, float deltaTime) {
+        if (!isOpen) {
+            return;
+        }
+        try {
+            if (keyMask != lastKeyMask) {
+                writeEvent(framesNum, KEYS_EVENT);
+                out.writeByte(keyMask);
+                lastKeyMask = keyMask;
+            }
+            int deltaBits = Float.floatToIntBits(deltaTime);
+            if (!hasDelta || deltaBits != lastDeltaBits) {
+                writeEvent(framesNum, DELTA_EVENT);
+                out.writeInt(deltaBits);
+                lastDeltaBits = deltaBits;
+                hasDelta = true;
+            }
+            framesNum++;
+        }
+        catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    /**
+     * Checks whether a checksum is due at the end of the current frame.
+     *
+     * @return true every CHECKSUM_INTERVAL frames
+     */
+    public synchronized boolean isChecksumDue() {
+        return isOpen && framesNum % CHECKSUM_INTERVAL == 0;
+    }
+
+    /**
+     * Records the state checksum at the end of the current frame.
+     *
+     * @param checksum the state checksum
+     */
+    public synchronized void recordChecksum(int checksum) {
+        if (!isOpen) {
+            return;
+        }
+        try {
+            writeEvent(framesNum - 1, CHECKSUM_EVENT);
+            out.writeInt(checksum);
+        }
+        catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    /**
+     * Ends the recording and closes the file. Does nothing if it already ended. Called when the game
+     * ends, and by the shutdown hook if the program exits first.
+     */
+    public synchronized void finish() {
+        if (!isOpen) {
+            return;
+        }
+        try {
+            if (hasHeader) {
+                writeEvent(framesNum, END_EVENT);
+            }
+            out.close();
+        }
+        catch (IOException e) {
+            fail(e);
+        }
+        isOpen = false;
+        removeShutdownHook();
+    }
+
+    /**
+     * Removes the shutdown hook of a recording that ended, unless the hook itself is running.
+     */
+    private void removeShutdownHook() {
+        if (Thread.currentThread() == shutdownHook) {
+            return;
+        }
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        }
+        catch (IllegalStateException ignored) {
+            // the program is already exiting, and the hook finds the recording ended
+        }
+    }
+
+    /**
+     * Writes the gap and type of an event.
+     *
+     * @param frame the frame of the event
+     * @param type  the type of the event
+     * @throws IOException if writing fails
+     */
+    private void writeEvent(int frame, byte type) throws IOException {
+        int gap = frame - lastEventFrame;
+        while ((gap & ~VARINT_PAYLOAD_MASK) != 0) {
+            out.writeByte((gap & VARINT_PAYLOAD_MASK) | VARINT_CONTINUE_BIT);
+            gap >>>= VARINT_PAYLOAD_BITS;
+        }
+        out.writeByte(gap);
+        out.writeByte(type);
+        lastEventFrame = frame;
+    }
+
+    /**
+     * Stops recording after a write error.
+     *
+     * @param e the error
+     */
+    private void fail(IOException e) {
+        System.err.println("Recording stopped: " + e.getMessage());
+        isOpen = false;
+        try {
+            out.close();
+        }
+        catch (IOException ignored) {
+            // the recording is already lost
+        }
+        removeShutdownHook();
+    }
+}
@@ -0,0 +1,117 @@
+package bricker.main;
+
+import java.util.Arrays;
+
+/**
+ * LatencyHistogram records durations in nanoseconds into log-linear buckets: every power of two
+ * is split into a few linear sub-buckets, so recording is a couple of bit operations and the
+ * reported percentiles are within 12.5% of the true value.
+ */
+public class LatencyHistogram {
+
+    /**
+     * The number of bits of linear sub-buckets in every power of two.
+     */
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS_NUM = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS_NUM = (Long.SIZE - SUB_BUCKET_BITS + 1) * SUB_BUCKETS_NUM;
+
+    private final long[] counts = new long[BUCKETS_NUM];
+    private long totalCount = 0;
+    private long max = 0;
+
+    /**
+     * Records a duration.
+     *
+     * @param nanos the duration, in nanoseconds
+     */
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        counts[bucketIndex(nanos)]++;
+        totalCount++;
+        if (nanos > max) {
+            max = nanos;
+        }
+    }
+
+    /**
+     * Gets the bucket of a value.
+     *
+     * @param value a non-negative value
+     * @return the index of the value's bucket
+     */
+    private static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS_NUM) {
+            return (int) value;
+        }
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS_NUM - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS_NUM + subBucket;
+    }
+
+    /**
+     * Gets the highest value that falls in a bucket.
+     *
+     * @param index the index of the bucket
+     * @return the upper bound of the bucket's values
+     */
+    private static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKETS_NUM) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKETS_NUM + SUB_BUCKET_BITS - 1;
+        long subBucket = index % SUB_BUCKETS_NUM;
+        long lowerBound = (SUB_BUCKETS_NUM + subBucket) << (exponent - SUB_BUCKET_BITS);
+        return lowerBound + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+
+    /**
+     * Gets a percentile of the recorded durations.
+     *
+     * @param percentile the percentile, between 0 and 100
+     * @return the duration at the percentile, in nanoseconds, or 0 if nothing was recorded
+     */
+    public long percentile(double percentile) {
+        if (totalCount == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(totalCount * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS_NUM; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(bucketUpperBound(i), max);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Gets the longest recorded duration.
+     *
+     * @return the maximum, in nanoseconds
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * Gets the number of recorded durations.
+     *
+     * @return the count
+     */
+    public long getCount() {
+        return totalCount;
+    }
+
+    /**
+     * Clears all the recorded durations.
+     */
+    public void reset() {
+        Arrays.fill(counts, 0);
+        totalCount = 0;
+        max = 0;
+    }
+}
@@ -0,0 +1,51 @@
+package bricker.main;
+
+import danogl.util.Vector2;
+
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * LockstepGame starts one side of a two-player lockstep game: the host waits for the other player
+ * and plays the main paddle, the joining player plays the second paddle. Both windows run the same
+ * simulation, in which the players compete for the bricks; only the players' keys are sent between them.
+ */
+public class LockstepGame {
+
+    private static final String WINDOW_NAME = "bricker - player ";
+    private static final String LOOPBACK_HOST = "localhost";
+
+    /**
+     * Hosts or joins a lockstep game.
+     *
+     * @param args "host" [port] [rows] [columns] [input delay] [batch size],
+     *             or "join" [host] [port]
+     * @throws IOException if the connection fails
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0 || !(args[0].equals("host") || args[0].equals("join"))) {
+            System.err.println("Usage: host [port] [rows] [columns] [input delay] [batch size]");
+            System.err.println("       join [host] [port]");
+            return;
+        }
+        LockstepSession session;
+        if (args[0].equals("host")) {
+            int port = args.length > 1 ? Integer.parseInt(args[1]) : LockstepSession.DEFAULT_PORT;
+            int rowsNum = args.length > 2 ? Integer.parseInt(args[2]) : BrickerGameManager.DEAFAULT_BRICKS_IN_ROW;
+            int colsNum = args.length > 3 ? Integer.parseInt(args[3]) : BrickerGameManager.DEAFAULT_BRICKS_IN_COL;
+            int inputDelay = args.length > 4 ? Integer.parseInt(args[4]) : LockstepSession.DEFAULT_INPUT_DELAY;
+            int batchSize = args.length > 5 ? Integer.parseInt(args[5]) : LockstepSession.DEFAULT_BATCH_SIZE;
+            System.out.println("Waiting for the other player on port " + port + "...");
+            session = LockstepSession.host(port, new Random().nextLong(), rowsNum, colsNum, inputDelay, batchSize);
+        }
+        else {
+            String hostName = args.length > 1 ? args[1] : LOOPBACK_HOST;
+            int port = args.length > 2 ? Integer.parseInt(args[2]) : LockstepSession.DEFAULT_PORT;
+            session = LockstepSession.join(hostName, port);
+        }
+        BrickerGameManager gameManager = new BrickerGameManager(WINDOW_NAME + (session.getLocalPlayer() + 1),
+                new Vector2(BrickerGameManager.WINDOW_WIDTH, BrickerGameManager.WINDOW_HEIGHT));
+        gameManager.setLockstep(session);
+        gameManager.run();
+    }
+}
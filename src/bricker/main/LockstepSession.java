@@ -0,0 +1,512 @@
+package bricker.main;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+/**
+ * LockstepSession connects two game instances over a TCP socket so that they run one deterministic
+ * simulation: both start from the same seed and board, and every logic tick runs only once the key
+ * masks of both players for that tick are known. Only key masks cross the socket, batched several
+ * ticks per packet, so the traffic is a few bytes per tick however busy the game is.
+ *
+ * <p>A key mask sampled at tick t is applied at tick t + inputDelay on both instances, which hides
+ * the network delay as long as a batch arrives within the delay. Round-trip times are measured with
+ * ping packets, and input latency is measured from sampling a mask to running its tick.</p>
+ *
+ * <p>When the game ends, each side sends its result and waits a short while for the other's before
+ * closing, so neither side mistakes the other closing the socket for a disconnect, and a desync is
+ * reported.</p>
+ *
+ * <p>The packets, big-endian: HELLO (seed long, rows int, columns int, input delay byte, batch size
+ * byte) from the host when the peer joins; INPUTS (first tick int, count byte, one key mask byte per
+ * tick); PING and PONG (a System.nanoTime long, echoed back); RESULT (last tick int, host score int,
+ * joining score int).</p>
+ */
+public class LockstepSession {
+
+    /**
+     * The default port of a session.
+     */
+    public static final int DEFAULT_PORT = 4242;
+
+    /**
+     * The default number of ticks between sampling a key mask and applying it.
+     */
+    public static final int DEFAULT_INPUT_DELAY = 6;
+
+    /**
+     * The default number of ticks of key masks sent in a packet.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 3;
+
+    /**
+     * The index of the hosting player, who plays the main paddle.
+     */
+    public static final int HOST_PLAYER = 0;
+
+    /**
+     * The index of the joining player, who plays the second paddle.
+     */
+    public static final int JOINING_PLAYER = 1;
+
+    private static final byte HELLO_PACKET = 0;
+    private static final byte INPUTS_PACKET = 1;
+    private static final byte PING_PACKET = 2;
+    private static final byte PONG_PACKET = 3;
+    private static final byte RESULT_PACKET = 4;
+
+    /**
+     * The longest time, in milliseconds, a finished side waits for the other side's result.
+     */
+    private static final long RESULT_TIMEOUT_MILLIS = 3000;
+
+    /**
+     * The number of ticks between two pings.
+     */
+    private static final int PING_INTERVAL_TICKS = 60;
+
+    /**
+     * The number of ticks of key masks kept; tick t is kept at t % RING_SIZE.
+     */
+    private static final int RING_SIZE = 256;
+    private static final int RING_MASK = RING_SIZE - 1;
+    private static final double NANOS_IN_MILLI = 1e6;
+
+    private final Socket socket;
+    private final DataOutputStream output;
+    private final DataInputStream input;
+    private final int localPlayer;
+    private final long seed;
+    private final int rowsNum;
+    private final int colsNum;
+    private final int inputDelay;
+    private final int batchSize;
+    //local key masks, and the time they were sampled, by tick
+    private final byte[] localMasks = new byte[RING_SIZE];
+    private final long[] sampleNanos = new long[RING_SIZE];
+    private int localTicksNum;
+    private int sentTicksNum;
+    //remote key masks by tick, written by the receiving thread
+    private final byte[] remoteMasks = new byte[RING_SIZE];
+    private volatile int remoteTicksNum;
+    private volatile boolean isClosed = false;
+    //the other side's result, written by the receiving thread before hasRemoteResult is set
+    private final Object resultLock = new Object();
+    private volatile boolean hasRemoteResult = false;
+    private int remoteResultTick;
+    private final int[] remoteScores = new int[2];
+    private final LatencyHistogram roundTripTimes = new LatencyHistogram();
+    private final LatencyHistogram inputLatencies = new LatencyHistogram();
+    private long bytesSent = 0;
+    private int executedTicksNum = 0;
+
+    /**
+     * Constructs a LockstepSession over a connected socket and starts receiving packets.
+     *
+     * @param socket      the connected socket
+     * @param input       the input stream of the socket, past the HELLO packet
+     * @param localPlayer the index of the local player
+     * @param seed        the seed of the session
+     * @param rowsNum     the number of rows of bricks
+     * @param colsNum     the number of columns of bricks
+     * @param inputDelay  the number of ticks between sampling and applying a key mask
+     * @param batchSize   the number of ticks of key masks sent in a packet
+     * @throws IOException if the socket's output cannot be opened
+     */
+    private LockstepSession(Socket socket, DataInputStream input, int localPlayer, long seed, int rowsNum,
+                            int colsNum, int inputDelay, int batchSize) throws IOException {
+        this.socket = socket;
+        this.input = input;
+        this.output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        this.localPlayer = localPlayer;
+        this.seed = seed;
+        this.rowsNum = rowsNum;
+        this.colsNum = colsNum;
+        this.inputDelay = inputDelay;
+        this.batchSize = batchSize;
+        //the masks of the first inputDelay ticks are empty on both sides
+        this.localTicksNum = inputDelay;
+        this.sentTicksNum = inputDelay;
+        this.remoteTicksNum = inputDelay;
+        Thread receivingThread = new Thread(this::receivePackets, "lockstep-receiver");
+        receivingThread.setDaemon(true);
+        receivingThread.start();
+    }
+
+    /**
+     * Waits for a player to join on a port, and sends them the seed and board of the session.
+     *
+     * @param port       the port to listen on
+     * @param seed       the seed of the session
+     * @param rowsNum    the number of rows of bricks
+     * @param colsNum    the number of columns of bricks
+     * @param inputDelay the number of ticks between sampling and applying a key mask
+     * @param batchSize  the number of ticks of key masks sent in a packet, at most inputDelay
+     * @return the session, as the host
+     * @throws IOException if the connection fails
+     * @throws IllegalArgumentException if the batch size does not fit the input delay, or the key masks
+     *                                  in flight do not fit the kept ticks
+     */
+    public static LockstepSession host(int port, long seed, int rowsNum, int colsNum, int inputDelay,
+                                       int batchSize) throws IOException {
+        if (!isTimingValid(inputDelay, batchSize)) {
+            throw new IllegalArgumentException("A batch of " + batchSize + " ticks does not fit an input delay of "
+                    + inputDelay + " ticks");
+        }
+        Socket socket;
+        try (ServerSocket serverSocket = new ServerSocket(port)) {
+            socket = serverSocket.accept();
+        }
+        socket.setTcpNoDelay(true);
+        DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        LockstepSession session = new LockstepSession(socket, input, HOST_PLAYER, seed, rowsNum, colsNum,
+                inputDelay, batchSize);
+        synchronized (session.output) {
+            session.output.writeByte(HELLO_PACKET);
+            session.output.writeLong(seed);
+            session.output.writeInt(rowsNum);
+            session.output.writeInt(colsNum);
+            session.output.writeByte(inputDelay);
+            session.output.writeByte(batchSize);
+            session.output.flush();
+        }
+        return session;
+    }
+
+    /**
+     * Joins a hosted session, and reads its seed and board.
+     *
+     * @param hostName the host of the session
+     * @param port     the port of the session
+     * @return the session, as the joining player
+     * @throws IOException if the connection fails or the host does not start a session
+     */
+    public static LockstepSession join(String hostName, int port) throws IOException {
+        Socket socket = new Socket(hostName, port);
+        socket.setTcpNoDelay(true);
+        DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        if (input.readByte() != HELLO_PACKET) {
+            socket.close();
+            throw new IOException("Not a lockstep session: " + hostName + ":" + port);
+        }
+        long seed = input.readLong();
+        int rowsNum = input.readInt();
+        int colsNum = input.readInt();
+        int inputDelay = input.readUnsignedByte();
+        int batchSize = input.readUnsignedByte();
+        if (!isTimingValid(inputDelay, batchSize)) {
+            socket.close();
+            throw new IOException("Unsupported session timing: an input delay of " + inputDelay
+                    + " ticks and batches of " + batchSize + " ticks");
+        }
+        return new LockstepSession(socket, input, JOINING_PLAYER, seed, rowsNum, colsNum, inputDelay, batchSize);
+    }
+
+    /**
+     * Checks that a batch size fits an input delay, and that the key masks in flight fit the kept ticks.
+     * The other side can run up to inputDelay ticks ahead of this one and sample a full batch another
+     * inputDelay ticks beyond that, so the masks of tick t + 2 * inputDelay + batchSize - 1 can arrive
+     * before tick t is read, and must not take its slot.
+     *
+     * @param inputDelay the number of ticks between sampling and applying a key mask
+     * @param batchSize  the number of ticks of key masks sent in a packet
+     * @return true if the timing is valid
+     */
+    private static boolean isTimingValid(int inputDelay, int batchSize) {
+        return batchSize >= 1 && batchSize <= inputDelay && 2 * inputDelay + batchSize < RING_SIZE;
+    }
+
+    /**
+     * Receives packets until the socket closes.
+     */
+    private void receivePackets() {
+        try {
+            while (true) {
+                byte packet = input.readByte();
+                if (packet == INPUTS_PACKET) {
+                    int firstTick = input.readInt();
+                    int count = input.readUnsignedByte();
+                    for (int tick = firstTick; tick < firstTick + count; tick++) {
+                        remoteMasks[tick & RING_MASK] = input.readByte();
+                    }
+                    remoteTicksNum = firstTick + count;
+                }
+                else if (packet == PING_PACKET) {
+                    long pingNanos = input.readLong();
+                    synchronized (output) {
+                        output.writeByte(PONG_PACKET);
+                        output.writeLong(pingNanos);
+                        output.flush();
+                    }
+                }
+                else if (packet == PONG_PACKET) {
+                    long roundTripNanos = System.nanoTime() - input.readLong();
+                    synchronized (roundTripTimes) {
+                        roundTripTimes.record(roundTripNanos);
+                    }
+                }
+                else if (packet == RESULT_PACKET) {
+                    remoteResultTick = input.readInt();
+                    remoteScores[HOST_PLAYER] = input.readInt();
+                    remoteScores[JOINING_PLAYER] = input.readInt();
+                    synchronized (resultLock) {
+                        hasRemoteResult = true;
+                        resultLock.notifyAll();
+                    }
+                }
+                else {
+                    throw new IOException("Unknown lockstep packet " + packet);
+                }
+            }
+        }
+        catch (IOException e) {
+            synchronized (resultLock) {
+                isClosed = true;
+                resultLock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Samples the local key mask at a tick, to be applied inputDelay ticks later. A tick is sampled
+     * once; sampling it again, as when a stalled tick is retried, does nothing. Full batches are sent.
+     *
+     * @param tick    the tick being prepared
+     * @param keyMask the local key mask, see InputRecorder.keyMask
+     */
+    public void sampleLocalInput(int tick, int keyMask) {
+        int appliedTick = tick + inputDelay;
+        if (appliedTick < localTicksNum) {
+            return;
+        }
+        localMasks[appliedTick & RING_MASK] = (byte) keyMask;
+        sampleNanos[appliedTick & RING_MASK] = System.nanoTime();
+        localTicksNum = appliedTick + 1;
+        if (localTicksNum - sentTicksNum >= batchSize) {
+            flush();
+        }
+    }
+
+    /**
+     * Checks whether the key masks of both players for a tick are known.
+     *
+     * @param tick the tick
+     * @return true if the tick can run, false if it waits for the remote player
+     */
+    public boolean isTickReady(int tick) {
+        return tick < localTicksNum && tick < remoteTicksNum;
+    }
+
+    /**
+     * Gets the key mask of a player for a ready tick.
+     *
+     * @param player the index of the player
+     * @param tick   the tick
+     * @return the key mask
+     */
+    public int getKeyMask(int player, int tick) {
+        byte[] masks = player == localPlayer ? localMasks : remoteMasks;
+        return tick < inputDelay ? 0 : masks[tick & RING_MASK];
+    }
+
+    /**
+     * Records the execution of a tick: measures the latency of its local key mask, and sends a ping
+     * every PING_INTERVAL_TICKS ticks.
+     *
+     * @param tick the tick that ran
+     */
+    public void onTickExecuted(int tick) {
+        executedTicksNum++;
+        if (tick >= inputDelay) {
+            inputLatencies.record(System.nanoTime() - sampleNanos[tick & RING_MASK]);
+        }
+        if (tick % PING_INTERVAL_TICKS == 0) {
+            try {
+                synchronized (output) {
+                    output.writeByte(PING_PACKET);
+                    output.writeLong(System.nanoTime());
+                    output.flush();
+                }
+                bytesSent += 1 + Long.BYTES;
+            }
+            catch (IOException e) {
+                isClosed = true;
+            }
+        }
+    }
+
+    /**
+     * Sends the sampled key masks that were not sent yet, even if they do not fill a batch. Called
+     * when waiting for the remote player, so neither side waits on a partial batch of the other.
+     */
+    public void flush() {
+        int count = localTicksNum - sentTicksNum;
+        if (count == 0) {
+            return;
+        }
+        try {
+            synchronized (output) {
+                output.writeByte(INPUTS_PACKET);
+                output.writeInt(sentTicksNum);
+                output.writeByte(count);
+                for (int tick = sentTicksNum; tick < localTicksNum; tick++) {
+                    output.writeByte(localMasks[tick & RING_MASK]);
+                }
+                output.flush();
+            }
+            bytesSent += 1 + Integer.BYTES + 1 + count;
+            sentTicksNum = localTicksNum;
+        }
+        catch (IOException e) {
+            isClosed = true;
+        }
+    }
+
+    /**
+     * Ends the session with the result of the game: sends the last tick and the scores, waits up to
+     * RESULT_TIMEOUT_MILLIS for the other side's result, and closes the connection.
+     *
+     * @param tick         the tick the game ended at
+     * @param hostScore    the score of the hosting player
+     * @param joiningScore the score of the joining player
+     * @return true if the other side ended at the same tick with the same scores
+     */
+    public boolean finish(int tick, int hostScore, int joiningScore) {
+        flush();
+        try {
+            synchronized (output) {
+                output.writeByte(RESULT_PACKET);
+                output.writeInt(tick);
+                output.writeInt(hostScore);
+                output.writeInt(joiningScore);
+                output.flush();
+            }
+            bytesSent += 1 + 3 * Integer.BYTES;
+        }
+        catch (IOException e) {
+            isClosed = true;
+        }
+        long deadline = System.currentTimeMillis() + RESULT_TIMEOUT_MILLIS;
+        synchronized (resultLock) {
+            long waitMillis = RESULT_TIMEOUT_MILLIS;
+            while (!hasRemoteResult && !isClosed && waitMillis > 0) {
+                try {
+                    resultLock.wait(waitMillis);
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                waitMillis = deadline - System.currentTimeMillis();
+            }
+        }
+        close();
+        return hasRemoteResult && remoteResultTick == tick && remoteScores[HOST_PLAYER] == hostScore
+                && remoteScores[JOINING_PLAYER] == joiningScore;
+    }
+
+    /**
+     * Checks whether the other side sent its result, meaning its game ended. Its key masks up to its
+     * last tick were sent before the result, so the local game can still run to that tick after the
+     * connection closes.
+     *
+     * @return true if the other side's result arrived
+     */
+    public boolean hasRemoteResult() {
+        return hasRemoteResult;
+    }
+
+    /**
+     * Gets the tick the other side's game ended at.
+     *
+     * @return the tick, valid once hasRemoteResult() is true
+     */
+    public int getRemoteResultTick() {
+        return remoteResultTick;
+    }
+
+    /**
+     * Checks whether the connection was lost or closed.
+     *
+     * @return true if the session is over
+     */
+    public boolean isClosed() {
+        return isClosed;
+    }
+
+    /**
+     * Closes the connection.
+     */
+    public void close() {
+        isClosed = true;
+        try {
+            socket.close();
+        }
+        catch (IOException ignored) {
+            //closing anyway
+        }
+    }
+
+    /**
+     * Builds a report of the session's round-trip times, input latencies and traffic.
+     *
+     * @return a few lines of statistics
+     */
+    public String report() {
+        long roundTripP50;
+        long roundTripP99;
+        synchronized (roundTripTimes) {
+            roundTripP50 = roundTripTimes.percentile(50);
+            roundTripP99 = roundTripTimes.percentile(99);
+        }
+        return String.format("lockstep player %d, %d ticks, input delay %d ticks, batches of %d ticks%n"
+                        + "  round trip    p50=%8.2fms p99=%8.2fms%n"
+                        + "  input latency p50=%8.2fms p99=%8.2fms%n"
+                        + "  sent %.2f bytes per tick%n",
+                localPlayer, executedTicksNum, inputDelay, batchSize,
+                roundTripP50 / NANOS_IN_MILLI, roundTripP99 / NANOS_IN_MILLI,
+                inputLatencies.percentile(50) / NANOS_IN_MILLI, inputLatencies.percentile(99) / NANOS_IN_MILLI,
+                executedTicksNum == 0 ? 0 : (double) bytesSent / executedTicksNum);
+    }
+
+    /**
+     * Gets the index of the local player.
+     *
+     * @return HOST_PLAYER or JOINING_PLAYER
+     */
+    public int getLocalPlayer() {
+        return localPlayer;
+    }
+
+    /**
+     * Gets the seed of the session.
+     *
+     * @return the seed
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Gets the number of rows of bricks of the session.
+     *
+     * @return the number of rows
+     */
+    public int getRowsNum() {
+        return rowsNum;
+    }
+
+    /**
+     * Gets the number of columns of bricks of the session.
+     *
+     * @return the number of columns
+     */
+    public int getColsNum() {
+        return colsNum;
+    }
+}
@@ -0,0 +1,83 @@
+package bricker.main;
+
+import danogl.GameObject;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ObjectRegistry indexes the dynamic game objects of the Bricker game by their tag,
+ * so per-frame checks visit only the few objects of the relevant kind (pucks, dropping hearts,
+ * paddles) instead of scanning every object in the game, most of which are bricks.
+ */
+public class ObjectRegistry {
+
+    private final Map<String, List<GameObject>> objectsByTag = new HashMap<>();
+
+    /**
+     * Constructs an ObjectRegistry that tracks objects with the given tags.
+     * Objects with any other tag are ignored.
+     *
+     * @param trackedTags the tags of the objects to track
+     */
+    public ObjectRegistry(String... trackedTags) {
+        for (String tag : trackedTags) {
+            objectsByTag.put(tag, new ArrayList<>());
+        }
+    }
+
+    /**
+     * Registers an object under its current tag, if that tag is tracked.
+     *
+     * @param gameObject the object to register
+     */
+    public void register(GameObject gameObject) {
+        List<GameObject> objects = objectsByTag.get(gameObject.getTag());
+        if (objects != null) {
+            objects.add(gameObject);
+        }
+    }
+
+    /**
+     * Unregisters an object, if it is registered under its current tag.
+     *
+     * @param gameObject the object to unregister
+     * @return true if the object was registered, false otherwise
+     */
+    public boolean unregister(GameObject gameObject) {
+        List<GameObject> objects = objectsByTag.get(gameObject.getTag());
+        return objects != null && objects.remove(gameObject);
+    }
+
+    /**
+     * Gets the registered objects with a tag. The list is live: it may be iterated by index
+     * from the end while objects are unregistered.
+     *
+     * @param tag a tracked tag
+     * @return the objects registered under the tag
+     */
+    public List<GameObject> getObjects(String tag) {
+        return objectsByTag.get(tag);
+    }
+
+    /**
+     * Gets the number of registered objects with a tag.
+     *
+     * @param tag a tracked tag
+     * @return the number of objects registered under the tag
+     */
+    public int count(String tag) {
+        return objectsByTag.get(tag).size();
+    }
+
+    /**
+     * Unregisters all the objects.
+     */
+    public void clear() {
+        for (List<GameObject> objects : objectsByTag.values()) {
+            objects.clear();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package bricker.main;
+
+import danogl.GameObject;
+import danogl.util.Vector2;
+
+import java.util.Arrays;
+
+/**
+ * RenderInterpolator shows moving objects between their positions of the last two logic ticks.
+ * Before a tick, the objects to interpolate are tracked with their current positions; after the
+ * frame's ticks, every tracked object is moved to a blend of its previous and new position for
+ * rendering, and is moved back to its simulated position before the next frame's logic runs.
+ */
+public class RenderInterpolator {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * The distance, in pixels, beyond which a move between two ticks is a jump (a respawn or a reset)
+     * and is shown as is, rather than interpolated.
+     */
+    private static final float JUMP_DISTANCE = 50;
+
+    private GameObject[] objects = new GameObject[INITIAL_CAPACITY];
+    private float[] previousXs = new float[INITIAL_CAPACITY];
+    private float[] previousYs = new float[INITIAL_CAPACITY];
+    private float[] currentXs = new float[INITIAL_CAPACITY];
+    private float[] currentYs = new float[INITIAL_CAPACITY];
+    private int size = 0;
+    private boolean isPresenting = false;
+
+    /**
+     * Starts tracking an object at its current position, as its position before the next tick.
+     *
+     * @param gameObject the moving object
+     */
+    public void track(GameObject gameObject) {
+        if (size == objects.length) {
+            int capacity = size * 2;
+            objects = Arrays.copyOf(objects, capacity);
+            previousXs = Arrays.copyOf(previousXs, capacity);
+            previousYs = Arrays.copyOf(previousYs, capacity);
+            currentXs = Arrays.copyOf(currentXs, capacity);
+            currentYs = Arrays.copyOf(currentYs, capacity);
+        }
+        Vector2 topLeft = gameObject.getTopLeftCorner();
+        objects[size] = gameObject;
+        previousXs[size] = topLeft.x();
+        previousYs[size] = topLeft.y();
+        size++;
+    }
+
+    /**
+     * Stops tracking all the objects.
+     */
+    public void clear() {
+        Arrays.fill(objects, 0, size, null);
+        size = 0;
+    }
+
+    /**
+     * Moves every tracked object to a blend of its previous and simulated positions, for rendering.
+     *
+     * @param alpha the part of a tick, between 0 and 1, that passed since the last tick
+     */
+    public void present(float alpha) {
+        restore();
+        for (int i = 0; i < size; i++) {
+            Vector2 topLeft = objects[i].getTopLeftCorner();
+            currentXs[i] = topLeft.x();
+            currentYs[i] = topLeft.y();
+            float moveX = currentXs[i] - previousXs[i];
+            float moveY = currentYs[i] - previousYs[i];
+            if (Math.abs(moveX) > JUMP_DISTANCE || Math.abs(moveY) > JUMP_DISTANCE) {
+                continue;
+            }
+            objects[i].transform().setTopLeftCorner(previousXs[i] + moveX * alpha, previousYs[i] + moveY * alpha);
+        }
+        isPresenting = true;
+    }
+
+    /**
+     * Moves every tracked object back to its simulated position, if it is shown interpolated.
+     */
+    public void restore() {
+        if (!isPresenting) {
+            return;
+        }
+        for (int i = 0; i < size; i++) {
+            objects[i].transform().setTopLeftCorner(currentXs[i], currentYs[i]);
+        }
+        isPresenting = false;
+    }
+}
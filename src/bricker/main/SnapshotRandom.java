@@ -0,0 +1,69 @@
+package bricker.main;
+
+import java.util.Random;
+
+/**
+ * SnapshotRandom is a Random whose generator state can be read and set, so that a saved game resumes
+ * the exact random sequence it left. It runs the same linear congruential generator as
+ * java.util.Random, so a seed yields the same numbers as a plain Random with that seed. Unlike Random
+ * it is not thread-safe; each instance is meant for a single thread.
+ */
+public class SnapshotRandom extends Random {
+
+    private static final long serialVersionUID = 1L;
+    private static final long MULTIPLIER = 0x5DEECE66DL;
+    private static final long ADDEND = 0xBL;
+    private static final long MASK = (1L << 48) - 1;
+
+    //set by setSeed, which the Random constructor calls, so it must have no initializer
+    private long state;
+
+    /**
+     * Constructs a SnapshotRandom with a seed.
+     *
+     * @param seed the seed, as for Random
+     */
+    public SnapshotRandom(long seed) {
+        super(seed);
+    }
+
+    /**
+     * Sets the seed, as Random.setSeed does.
+     *
+     * @param seed the seed
+     */
+    @Override
+    public void setSeed(long seed) {
+        state = (seed ^ MULTIPLIER) & MASK;
+    }
+
+    /**
+     * Generates the next random bits, as Random.next does.
+     *
+     * @param bits the number of random bits
+     * @return the random bits
+     */
+    @Override
+    protected int next(int bits) {
+        state = (state * MULTIPLIER + ADDEND) & MASK;
+        return (int) (state >>> (48 - bits));
+    }
+
+    /**
+     * Gets the generator state.
+     *
+     * @return the 48 bit state
+     */
+    public long getState() {
+        return state;
+    }
+
+    /**
+     * Sets the generator state, as returned by getState().
+     *
+     * @param state the 48 bit state
+     */
+    public void setState(long state) {
+        this.state = state & MASK;
+    }
+}
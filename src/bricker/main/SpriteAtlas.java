@@ -0,0 +1,139 @@
+package bricker.main;
+
+import danogl.gui.rendering.ImageRenderable;
+import danogl.gui.rendering.Renderable;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * SpriteAtlas packs the small sprites of the game into a single image.
+ * Every sprite is decoded once when the atlas is built, and handed out as a renderable
+ * of its own region of the atlas.
+ */
+public class SpriteAtlas {
+
+    /**
+     * The width of the atlas image. Sprites are packed in rows (shelves) of this width.
+     */
+    private static final int ATLAS_WIDTH = 512;
+
+    /**
+     * The gap left between sprites, so filtering never samples a neighbouring sprite.
+     */
+    private static final int PADDING = 1;
+
+    private final Map<String, Renderable> sprites = new HashMap<>();
+    private final Map<String, BufferedImage> spriteImages = new HashMap<>();
+    private final BufferedImage atlasImage;
+
+    /**
+     * Builds an atlas of the given sprites.
+     *
+     * @param spritePaths        the paths of the sprite image files
+     * @param isTransparentFlags for every sprite, whether its top-left pixel color is transparent
+     * @throws IOException if a sprite cannot be decoded
+     */
+    public SpriteAtlas(String[] spritePaths, boolean[] isTransparentFlags) throws IOException {
+        BufferedImage[] images = new BufferedImage[spritePaths.length];
+        int[] xs = new int[spritePaths.length];
+        int[] ys = new int[spritePaths.length];
+        int x = 0;
+        int y = 0;
+        int shelfHeight = 0;
+        for (int i = 0; i < spritePaths.length; i++) {
+            images[i] = ImageIO.read(new File(spritePaths[i]));
+            if (images[i] == null) {
+                throw new IOException("Unsupported image: " + spritePaths[i]);
+            }
+            if (x + images[i].getWidth() > ATLAS_WIDTH) {
+                x = 0;
+                y += shelfHeight + PADDING;
+                shelfHeight = 0;
+            }
+            xs[i] = x;
+            ys[i] = y;
+            x += images[i].getWidth() + PADDING;
+            shelfHeight = Math.max(shelfHeight, images[i].getHeight());
+        }
+        atlasImage = new BufferedImage(ATLAS_WIDTH, Math.max(1, y + shelfHeight), BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = atlasImage.createGraphics();
+        for (int i = 0; i < images.length; i++) {
+            graphics.drawImage(images[i], xs[i], ys[i], null);
+        }
+        graphics.dispose();
+        for (int i = 0; i < images.length; i++) {
+            BufferedImage region = atlasImage.getSubimage(xs[i], ys[i],
+                    images[i].getWidth(), images[i].getHeight());
+            if (isTransparentFlags[i]) {
+                clearTopLeftColor(region);
+            }
+            sprites.put(key(spritePaths[i], isTransparentFlags[i]), new ImageRenderable(region));
+            spriteImages.put(key(spritePaths[i], isTransparentFlags[i]), region);
+        }
+    }
+
+    /**
+     * Makes every pixel of a region with the color of its top-left pixel transparent,
+     * the same way ImageReader treats transparent images.
+     *
+     * @param region the atlas region of a single sprite
+     */
+    private static void clearTopLeftColor(BufferedImage region) {
+        int transparentColor = region.getRGB(0, 0);
+        for (int y = 0; y < region.getHeight(); y++) {
+            for (int x = 0; x < region.getWidth(); x++) {
+                if (region.getRGB(x, y) == transparentColor) {
+                    region.setRGB(x, y, 0);
+                }
+            }
+        }
+    }
+
+    /**
+     * Builds the key of a sprite from its path and options.
+     *
+     * @param spritePath    the path of the sprite image file
+     * @param isTransparent whether the top-left pixel color is transparent
+     * @return the key of the sprite
+     */
+    static String key(String spritePath, boolean isTransparent) {
+        return spritePath + (isTransparent ? "#transparent" : "#opaque");
+    }
+
+    /**
+     * Finds a sprite in the atlas.
+     *
+     * @param spritePath    the path of the sprite image file
+     * @param isTransparent whether the top-left pixel color is transparent
+     * @return the renderable of the sprite, or null if it is not in the atlas
+     */
+    public Renderable find(String spritePath, boolean isTransparent) {
+        return sprites.get(key(spritePath, isTransparent));
+    }
+
+    /**
+     * Finds the image of a sprite in the atlas, for code that draws sprites itself.
+     *
+     * @param spritePath    the path of the sprite image file
+     * @param isTransparent whether the top-left pixel color is transparent
+     * @return the atlas region of the sprite, or null if it is not in the atlas
+     */
+    public BufferedImage findImage(String spritePath, boolean isTransparent) {
+        return spriteImages.get(key(spritePath, isTransparent));
+    }
+
+    /**
+     * Gets the packed atlas image.
+     *
+     * @return the atlas image
+     */
+    public BufferedImage getAtlasImage() {
+        return atlasImage;
+    }
+}
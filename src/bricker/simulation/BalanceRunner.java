@@ -0,0 +1,156 @@
+package bricker.simulation;
+
+import bricker.gameobjects.BotSkill;
+import bricker.main.BrickerGameManager;
+import bricker.main.FrameProfiler;
+import bricker.main.GameResult;
+import bricker.main.HeadlessSimulation;
+import danogl.util.Vector2;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * BalanceRunner simulates many seeded, headless games played by a bot, in parallel on a fork-join pool
+ * and aggregates their win rate, length and peak puck count. Games share no state, so throughput
+ * scales with the number of cores.
+ */
+public class BalanceRunner {
+
+    /**
+     * The maximum length of a single game: ten minutes of play at 60 frames per second.
+     */
+    public static final int MAX_FRAMES_PER_GAME = 36_000;
+
+    /**
+     * The number of games below which a task runs its games instead of splitting.
+     */
+    private static final int GAMES_PER_LEAF = 4;
+
+    private static final String WINDOW_NAME = "bricker-balance";
+    private static final String DEFAULT_OUTPUT_FILE = "balance_statistics.txt";
+    private static final double NANOS_IN_SECOND = 1e9;
+
+    private final int rowsNum;
+    private final int colsNum;
+    private final int strategyRollRange;
+    private final BotSkill botSkill;
+
+    /**
+     * Constructs a BalanceRunner.
+     *
+     * @param rowsNum           the number of rows of bricks in every game
+     * @param colsNum           the number of columns of bricks in every game
+     * @param strategyRollRange the range of the brick strategy roll, which sets the power-up mix
+     * @param botSkill          the skill level of the bot playing every game
+     */
+    public BalanceRunner(int rowsNum, int colsNum, int strategyRollRange, BotSkill botSkill) {
+        this.rowsNum = rowsNum;
+        this.colsNum = colsNum;
+        this.strategyRollRange = strategyRollRange;
+        this.botSkill = botSkill;
+    }
+
+    /**
+     * Simulates a single game.
+     *
+     * @param seed the seed of the game
+     * @return the statistics of the game
+     */
+    public BalanceStatistics playGame(long seed) {
+        BrickerGameManager gameManager = new BrickerGameManager(WINDOW_NAME,
+                new Vector2(BrickerGameManager.WINDOW_WIDTH, BrickerGameManager.WINDOW_HEIGHT),
+                rowsNum, colsNum);
+        gameManager.setSeed(seed);
+        gameManager.setStrategyRollRange(strategyRollRange);
+        gameManager.setBotSkill(botSkill);
+        HeadlessSimulation simulation = new HeadlessSimulation(gameManager, HeadlessSimulation.DEFAULT_FIXED_DELTA);
+        int peakPucks = 0;
+        boolean isInProgress = true;
+        while (isInProgress && simulation.getFramesNum() < MAX_FRAMES_PER_GAME) {
+            isInProgress = simulation.step();
+            peakPucks = Math.max(peakPucks, gameManager.getPucksNum());
+        }
+        BalanceStatistics statistics = new BalanceStatistics();
+        statistics.addGame(gameManager.getGameResult(), simulation.getFramesNum(), peakPucks);
+        return statistics;
+    }
+
+    /**
+     * Simulates games with consecutive seeds in parallel.
+     *
+     * @param firstSeed the seed of the first game
+     * @param gamesNum  the number of games
+     * @param pool      the fork-join pool to run on
+     * @return the aggregated statistics of all the games
+     */
+    public BalanceStatistics playGames(long firstSeed, int gamesNum, ForkJoinPool pool) {
+        return pool.invoke(new GamesTask(firstSeed, firstSeed + gamesNum));
+    }
+
+    /**
+     * GamesTask simulates a range of seeds, splitting it in half until it is small enough.
+     */
+    private class GamesTask extends RecursiveTask<BalanceStatistics> {
+        private static final long serialVersionUID = 1L;
+        private final long fromSeed;
+        private final long toSeed;
+
+        /**
+         * Constructs a GamesTask.
+         *
+         * @param fromSeed the first seed, inclusive
+         * @param toSeed   the last seed, exclusive
+         */
+        GamesTask(long fromSeed, long toSeed) {
+            this.fromSeed = fromSeed;
+            this.toSeed = toSeed;
+        }
+
+        @Override
+        protected BalanceStatistics compute() {
+            if (toSeed - fromSeed <= GAMES_PER_LEAF) {
+                BalanceStatistics statistics = new BalanceStatistics();
+                for (long seed = fromSeed; seed < toSeed; seed++) {
+                    statistics.merge(playGame(seed));
+                }
+                return statistics;
+            }
+            long middle = (fromSeed + toSeed) >>> 1;
+            GamesTask lower = new GamesTask(fromSeed, middle);
+            lower.fork();
+            BalanceStatistics upper = new GamesTask(middle, toSeed).compute();
+            return upper.merge(lower.join());
+        }
+    }
+
+    /**
+     * Runs a balance batch and writes the aggregate statistics to a file.
+     *
+     * @param args optional: [games] [bricks in a row] [bricks in a column] [strategy roll range]
+     *             [first seed] [output file] [bot skill]
+     * @throws IOException if the statistics cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        int gamesNum = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int rowsNum = args.length > 1 ? Integer.parseInt(args[1]) : 7;
+        int colsNum = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+        int strategyRollRange = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+        long firstSeed = args.length > 4 ? Long.parseLong(args[4]) : 0;
+        String outputFile = args.length > 5 ? args[5] : DEFAULT_OUTPUT_FILE;
+        System.setProperty(FrameProfiler.DUMP_FILE_PROPERTY, "");
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        BotSkill botSkill = args.length > 6 ? BotSkill.valueOf(args[6].toUpperCase()) : BotSkill.GOOD;
+        BalanceRunner runner = new BalanceRunner(rowsNum, colsNum, strategyRollRange, botSkill);
+        long start = System.nanoTime();
+        BalanceStatistics statistics = runner.playGames(firstSeed, gamesNum, pool);
+        double seconds = (System.nanoTime() - start) / NANOS_IN_SECOND;
+        String report = statistics.report() + String.format("parallelism=%d%nseconds=%.2f%nframesPerSecond=%.0f%n",
+                pool.getParallelism(), seconds, statistics.getTotalFrames() / seconds);
+        Files.write(Paths.get(outputFile), report.getBytes());
+        System.out.print(report);
+    }
+}
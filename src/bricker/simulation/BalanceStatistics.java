@@ -0,0 +1,101 @@
+package bricker.simulation;
+
+import bricker.main.GameResult;
+
+/**
+ * BalanceStatistics aggregates the outcome of many simulated games.
+ */
+public class BalanceStatistics {
+
+    private long gamesNum = 0;
+    private long winsNum = 0;
+    private long lossesNum = 0;
+    private long timeoutsNum = 0;
+    private long totalFrames = 0;
+    private long maxFrames = 0;
+    private long totalPeakPucks = 0;
+    private int maxPeakPucks = 0;
+
+    /**
+     * Adds the outcome of a single game.
+     *
+     * @param result     the result of the game, IN_PROGRESS if it hit the frame limit
+     * @param framesNum  the length of the game, in frames
+     * @param peakPucks  the largest number of pucks alive at once during the game
+     */
+    public void addGame(GameResult result, int framesNum, int peakPucks) {
+        gamesNum++;
+        switch (result) {
+            case WIN:
+                winsNum++;
+                break;
+            case LOSE:
+                lossesNum++;
+                break;
+            default:
+                timeoutsNum++;
+        }
+        totalFrames += framesNum;
+        maxFrames = Math.max(maxFrames, framesNum);
+        totalPeakPucks += peakPucks;
+        maxPeakPucks = Math.max(maxPeakPucks, peakPucks);
+    }
+
+    /**
+     * Adds all the games of another statistics object.
+     *
+     * @param other the statistics to merge into this one
+     * @return this statistics object
+     */
+    public BalanceStatistics merge(BalanceStatistics other) {
+        gamesNum += other.gamesNum;
+        winsNum += other.winsNum;
+        lossesNum += other.lossesNum;
+        timeoutsNum += other.timeoutsNum;
+        totalFrames += other.totalFrames;
+        maxFrames = Math.max(maxFrames, other.maxFrames);
+        totalPeakPucks += other.totalPeakPucks;
+        maxPeakPucks = Math.max(maxPeakPucks, other.maxPeakPucks);
+        return this;
+    }
+
+    /**
+     * Gets the number of games.
+     *
+     * @return the number of games
+     */
+    public long getGamesNum() {
+        return gamesNum;
+    }
+
+    /**
+     * Gets the total number of simulated frames.
+     *
+     * @return the number of frames
+     */
+    public long getTotalFrames() {
+        return totalFrames;
+    }
+
+    /**
+     * Gets the fraction of games won.
+     *
+     * @return the win rate, between 0 and 1
+     */
+    public double getWinRate() {
+        return gamesNum == 0 ? 0 : (double) winsNum / gamesNum;
+    }
+
+    /**
+     * Builds a report of the statistics.
+     *
+     * @return one "name=value" line per statistic
+     */
+    public String report() {
+        double games = Math.max(1, gamesNum);
+        return String.format("games=%d%nwins=%d%nlosses=%d%ntimeouts=%d%nwinRate=%.4f%n" +
+                        "meanFrames=%.1f%nmaxFrames=%d%nmeanPeakPucks=%.2f%nmaxPeakPucks=%d%n",
+                gamesNum, winsNum, lossesNum, timeoutsNum, getWinRate(), totalFrames / games, maxFrames,
+                totalPeakPucks / games, maxPeakPucks);
+    }
+}
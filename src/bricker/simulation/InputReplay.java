@@ -0,0 +1,208 @@
+package bricker.simulation;
+
+import bricker.gameobjects.BotSkill;
+import bricker.main.BrickerGameManager;
+import bricker.main.EntityBudget;
+import bricker.main.GameResult;
+import bricker.main.HeadlessSimulation;
+import bricker.main.InputRecorder;
+import danogl.util.Vector2;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+
+/**
+ * InputReplay replays a session recorded by InputRecorder, headless and at maximum speed.
+ * The game is rebuilt from the recorded seed, board setup and game settings (endless mode, level
+ * file, bot and entity budget), fed the recorded keys and delta
+ * times frame by frame, and checked against the recorded state checksums. A recording cut short,
+ * as when the recording program was killed, is replayed up to its last whole event.
+ */
+public class InputReplay {
+
+    private static final String WINDOW_NAME = "bricker-replay";
+    private static final int VARINT_PAYLOAD_BITS = 7;
+    private static final int VARINT_PAYLOAD_MASK = 0x7F;
+    private static final int VARINT_CONTINUE_BIT = 0x80;
+    private static final double NANOS_IN_SECOND = 1e9;
+
+    /**
+     * The version of recordings whose header held no game settings, only the seed and board setup.
+     */
+    private static final byte SETTINGLESS_VERSION = 1;
+
+    private final DataInputStream in;
+    private final BrickerGameManager gameManager;
+    private final HeadlessSimulation simulation;
+    private int nextEventFrame;
+    private byte nextEventType;
+    private int firstMismatchFrame = -1;
+    private int checksumsNum = 0;
+    private boolean isTruncated = false;
+
+    /**
+     * Constructs an InputReplay of a recording file, and builds the recorded game.
+     *
+     * @param recordingPath the path of the recording file
+     * @throws IOException if the file cannot be read or is not a recording, or if its level file
+     *                     cannot be loaded
+     */
+    public InputReplay(String recordingPath) throws IOException {
+        in = new DataInputStream(new BufferedInputStream(new FileInputStream(recordingPath)));
+        if (in.readInt() != InputRecorder.MAGIC) {
+            in.close();
+            throw new IOException("Not a recording: " + recordingPath);
+        }
+        byte version = in.readByte();
+        if (version == SETTINGLESS_VERSION) {
+            in.close();
+            throw new IOException("The recording does not hold the game settings (endless mode, level file, "
+                    + "bot and entity budget), so it cannot be replayed as the same game: " + recordingPath);
+        }
+        if (version != InputRecorder.VERSION) {
+            in.close();
+            throw new IOException("Not a supported recording version (" + version + "): " + recordingPath);
+        }
+        long seed = in.readLong();
+        int rowsNum = in.readInt();
+        int colsNum = in.readInt();
+        int strategyRollRange = in.readInt();
+        int flags = in.readUnsignedByte();
+        gameManager = new BrickerGameManager(WINDOW_NAME,
+                new Vector2(BrickerGameManager.WINDOW_WIDTH, BrickerGameManager.WINDOW_HEIGHT), rowsNum, colsNum);
+        gameManager.setSeed(seed);
+        gameManager.setStrategyRollRange(strategyRollRange);
+        gameManager.setEndless((flags & InputRecorder.ENDLESS_FLAG) != 0);
+        if ((flags & InputRecorder.LEVEL_FLAG) != 0) {
+            gameManager.loadLevel(in.readUTF());
+        }
+        if ((flags & InputRecorder.BOT_FLAG) != 0) {
+            gameManager.setBotSkill(BotSkill.values()[in.readUnsignedByte()]);
+        }
+        int maxPucksNum = in.readInt();
+        int maxDroppingHeartsNum = in.readInt();
+        gameManager.setEntityBudget(new EntityBudget(maxPucksNum, maxDroppingHeartsNum,
+                EntityBudget.Policy.values()[in.readUnsignedByte()]));
+        simulation = new HeadlessSimulation(gameManager, HeadlessSimulation.DEFAULT_FIXED_DELTA);
+        nextEventFrame = 0;
+        readEventHeader();
+    }
+
+    /**
+     * Reads the gap and type of the next event. The end of the file is read as an END event.
+     *
+     * @throws IOException if the file cannot be read
+     */
+    private void readEventHeader() throws IOException {
+        int gap = 0;
+        int shift = 0;
+        int b;
+        try {
+            do {
+                b = in.readUnsignedByte();
+                gap |= (b & VARINT_PAYLOAD_MASK) << shift;
+                shift += VARINT_PAYLOAD_BITS;
+            } while ((b & VARINT_CONTINUE_BIT) != 0);
+            nextEventType = in.readByte();
+        }
+        catch (EOFException e) {
+            endAtTruncation();
+            return;
+        }
+        nextEventFrame += gap;
+    }
+
+    /**
+     * Ends the replay at the end of a recording that was cut short, without an END event.
+     */
+    private void endAtTruncation() {
+        isTruncated = true;
+        nextEventType = InputRecorder.END_EVENT;
+    }
+
+    /**
+     * Replays the whole recording.
+     *
+     * @return the result of the replayed game
+     * @throws IOException if the file cannot be read
+     */
+    public GameResult replay() throws IOException {
+        float deltaTime = HeadlessSimulation.DEFAULT_FIXED_DELTA;
+        try {
+            for (int frame = 0; nextEventType != InputRecorder.END_EVENT; frame++) {
+                while (nextEventFrame == frame && nextEventType != InputRecorder.END_EVENT &&
+                        nextEventType != InputRecorder.CHECKSUM_EVENT) {
+                    if (nextEventType == InputRecorder.KEYS_EVENT) {
+                        simulation.getInput().applyKeyMask(in.readUnsignedByte());
+                    }
+                    else {
+                        deltaTime = Float.intBitsToFloat(in.readInt());
+                    }
+                    readEventHeader();
+                }
+                gameManager.update(deltaTime);
+                while (nextEventFrame == frame && nextEventType == InputRecorder.CHECKSUM_EVENT) {
+                    checksumsNum++;
+                    if (in.readInt() != gameManager.stateChecksum() && firstMismatchFrame < 0) {
+                        firstMismatchFrame = frame;
+                    }
+                    readEventHeader();
+                }
+            }
+        }
+        catch (EOFException e) {
+            endAtTruncation();
+        }
+        in.close();
+        return gameManager.getGameResult();
+    }
+
+    /**
+     * Gets the first frame whose state differed from the recording.
+     *
+     * @return the frame, or -1 if every checksum matched
+     */
+    public int getFirstMismatchFrame() {
+        return firstMismatchFrame;
+    }
+
+    /**
+     * Checks whether the recording was cut short, without an END event.
+     *
+     * @return true if the replay ended at the end of the file
+     */
+    public boolean isTruncated() {
+        return isTruncated;
+    }
+
+    /**
+     * Gets the number of checksums verified.
+     *
+     * @return the number of checksums
+     */
+    public int getChecksumsNum() {
+        return checksumsNum;
+    }
+
+    /**
+     * Replays a recording and prints whether it matched.
+     *
+     * @param args [recording file]
+     * @throws IOException if the recording cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        InputReplay replay = new InputReplay(args[0]);
+        long start = System.nanoTime();
+        GameResult result = replay.replay();
+        double seconds = (System.nanoTime() - start) / NANOS_IN_SECOND;
+        System.out.printf("result: %s, seconds: %.3f, checksums: %d, %s%n", result, seconds,
+                replay.getChecksumsNum(), replay.getFirstMismatchFrame() < 0 ? "all matched" :
+                        "first mismatch at frame " + replay.getFirstMismatchFrame());
+        if (replay.isTruncated()) {
+            System.out.println("the recording was cut short; replayed up to its last whole event");
+        }
+    }
+}
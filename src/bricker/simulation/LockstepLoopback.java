@@ -0,0 +1,183 @@
+package bricker.simulation;
+
+import bricker.main.BrickerGameManager;
+import bricker.main.FrameProfiler;
+import bricker.main.GameResult;
+import bricker.main.HeadlessSimulation;
+import bricker.main.LockstepSession;
+import danogl.util.Vector2;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * LockstepLoopback runs both sides of a lockstep versus game headless in one process, connected over
+ * the loopback interface, with scripted random keys on both sides: the host's keys drive the main
+ * paddle and the joining side's keys the second paddle, so both input paths cross the socket. Each
+ * side records its state checksum and main paddle position at the tick it reached at the end of every
+ * frame, and the records of the ticks both sides recorded must match, as must the final scores when
+ * both sides stopped at the same tick. The host's main paddle must have moved.
+ */
+public class LockstepLoopback {
+
+    private static final String LOOPBACK_HOST = "127.0.0.1";
+    private static final String WINDOW_NAME = "bricker-loopback";
+    private static final int BOARD_SIZE = 6;
+    private static final int KEYS_CHANGE_FRAMES = 20;
+    private static final int MOVEMENT_KEY_MASKS_NUM = 4;
+    private static final int JOIN_ATTEMPTS = 50;
+    private static final long JOIN_RETRY_MILLIS = 100;
+
+    /**
+     * One side of the game: its session, its headless game and the checksums it recorded.
+     */
+    private static class Side implements Runnable {
+        private final LockstepSession session;
+        private final BrickerGameManager gameManager;
+        private final HeadlessSimulation simulation;
+        private final Random keysRandom;
+        private final int maxTicks;
+        private final Map<Integer, Integer> checksumsByTick = new HashMap<>();
+        private boolean hasMainPaddleMoved = false;
+
+        /**
+         * Constructs a Side.
+         *
+         * @param session   the connected session of the side
+         * @param keysSeed  the seed of the side's scripted keys
+         * @param maxTicks  the number of ticks after which the side stops if the game did not end
+         */
+        Side(LockstepSession session, long keysSeed, int maxTicks) {
+            this.session = session;
+            this.gameManager = new BrickerGameManager(WINDOW_NAME,
+                    new Vector2(BrickerGameManager.WINDOW_WIDTH, BrickerGameManager.WINDOW_HEIGHT));
+            gameManager.setLockstep(session);
+            this.simulation = new HeadlessSimulation(gameManager, HeadlessSimulation.DEFAULT_FIXED_DELTA);
+            this.keysRandom = new Random(keysSeed);
+            this.maxTicks = maxTicks;
+        }
+
+        /**
+         * Computes the checksum of the side's game at the current tick, with the main paddle position,
+         * which the state checksum leaves out.
+         *
+         * @return the checksum
+         */
+        private int checksum() {
+            float mainPaddleX = gameManager.getMainPaddle().getTopLeftCorner().x();
+            return 31 * gameManager.stateChecksum() + Float.floatToIntBits(mainPaddleX);
+        }
+
+        /**
+         * Steps the game until it ends or reaches maxTicks, pressing random arrow keys.
+         */
+        @Override
+        public void run() {
+            boolean isInProgress = true;
+            int lastTick = -1;
+            float startMainPaddleX = gameManager.getMainPaddle().getTopLeftCorner().x();
+            while (isInProgress && gameManager.getLockstepTickNum() < maxTicks) {
+                if (simulation.getFramesNum() % KEYS_CHANGE_FRAMES == 0) {
+                    simulation.getInput().applyKeyMask(keysRandom.nextInt(MOVEMENT_KEY_MASKS_NUM));
+                }
+                isInProgress = simulation.step();
+                int tick = gameManager.getLockstepTickNum();
+                if (tick != lastTick) {
+                    checksumsByTick.put(tick, checksum());
+                    hasMainPaddleMoved |= gameManager.getMainPaddle().getTopLeftCorner().x() != startMainPaddleX;
+                    lastTick = tick;
+                }
+                else {
+                    Thread.onSpinWait();
+                }
+            }
+            //the other side may still need the masks sampled in the last frames
+            session.flush();
+        }
+    }
+
+    /**
+     * Runs a loopback game and reports whether both sides stayed in sync.
+     *
+     * @param args optional: [port] [max ticks] [seed]
+     * @throws IOException if the sides cannot connect
+     * @throws InterruptedException if interrupted while waiting for the sides
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : LockstepSession.DEFAULT_PORT;
+        int maxTicks = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 0;
+        System.setProperty(FrameProfiler.DUMP_FILE_PROPERTY, "");
+        LockstepSession[] hostSession = new LockstepSession[1];
+        IOException[] hostError = new IOException[1];
+        Thread hostThread = new Thread(() -> {
+            try {
+                hostSession[0] = LockstepSession.host(port, seed, BOARD_SIZE, BOARD_SIZE,
+                        LockstepSession.DEFAULT_INPUT_DELAY, LockstepSession.DEFAULT_BATCH_SIZE);
+            }
+            catch (IOException e) {
+                hostError[0] = e;
+            }
+        }, "loopback-host");
+        hostThread.start();
+        LockstepSession joinSession = null;
+        for (int attempt = 0; joinSession == null; attempt++) {
+            try {
+                joinSession = LockstepSession.join(LOOPBACK_HOST, port);
+            }
+            catch (IOException e) {
+                if (attempt == JOIN_ATTEMPTS) {
+                    throw e;
+                }
+                Thread.sleep(JOIN_RETRY_MILLIS);
+            }
+        }
+        hostThread.join();
+        if (hostError[0] != null) {
+            throw hostError[0];
+        }
+        Side host = new Side(hostSession[0], seed + 1, maxTicks);
+        Side joining = new Side(joinSession, seed + 2, maxTicks);
+        Thread hostSide = new Thread(host, "loopback-host-side");
+        Thread joiningSide = new Thread(joining, "loopback-joining-side");
+        hostSide.start();
+        joiningSide.start();
+        hostSide.join();
+        joiningSide.join();
+        host.session.close();
+        joining.session.close();
+        int comparedNum = 0;
+        int mismatchesNum = 0;
+        for (Map.Entry<Integer, Integer> entry : host.checksumsByTick.entrySet()) {
+            Integer joiningChecksum = joining.checksumsByTick.get(entry.getKey());
+            if (joiningChecksum != null) {
+                comparedNum++;
+                if (!joiningChecksum.equals(entry.getValue())) {
+                    mismatchesNum++;
+                }
+            }
+        }
+        //a side stopped by maxTicks can run one tick more than the other, and score in it
+        boolean isSameTick = host.gameManager.getLockstepTickNum() == joining.gameManager.getLockstepTickNum();
+        boolean isScoreAgreed = !isSameTick || host.gameManager.getLockstepScore(LockstepSession.HOST_PLAYER)
+                == joining.gameManager.getLockstepScore(LockstepSession.HOST_PLAYER)
+                && host.gameManager.getLockstepScore(LockstepSession.JOINING_PLAYER)
+                == joining.gameManager.getLockstepScore(LockstepSession.JOINING_PLAYER);
+        GameResult hostResult = host.gameManager.getGameResult();
+        System.out.printf("ticks: %d/%d, checksums compared: %d, mismatches: %d, scores %d:%d %s, host result: %s%n",
+                host.gameManager.getLockstepTickNum(), joining.gameManager.getLockstepTickNum(), comparedNum,
+                mismatchesNum, host.gameManager.getLockstepScore(LockstepSession.HOST_PLAYER),
+                host.gameManager.getLockstepScore(LockstepSession.JOINING_PLAYER),
+                isScoreAgreed ? "agreed" : "differ", hostResult);
+        if (!host.hasMainPaddleMoved) {
+            System.out.println("the host's keys never moved the main paddle");
+        }
+        System.out.print(host.session.report());
+        System.out.print(joining.session.report());
+        if (mismatchesNum > 0 || !isScoreAgreed || !host.hasMainPaddleMoved) {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package bricker.simulation;
+
+import bricker.gameobjects.BotSkill;
+import bricker.main.BrickerGameManager;
+import bricker.main.EntityBudget;
+import bricker.main.FrameProfiler;
+import bricker.main.HeadlessSimulation;
+import danogl.util.Vector2;
+
+import java.util.Arrays;
+
+/**
+ * SaveStateCheck plays seeded headless games with a bot and, every few frames, saves the game state,
+ * restores it into the running game and checks that nothing changed: the state checksum and a second
+ * save must match the first. A truncated copy of every save must be rejected without changing the game.
+ * Every checked game is played alongside a twin of the same seed that is never saved or restored, and
+ * the two must agree on every frame, so that a restored game is known to continue exactly as the
+ * original would have. Half the games hold back spawns above a small entity budget, so the held back
+ * spawns are part of the saved states.
+ */
+public class SaveStateCheck {
+
+    /**
+     * The maximum length of a single game: ten minutes of play at 60 frames per second.
+     */
+    private static final int MAX_FRAMES_PER_GAME = 36_000;
+
+    /**
+     * The limits of the small entity budget of the games that hold back spawns.
+     */
+    private static final int SMALL_BUDGET_PUCKS_NUM = 4;
+    private static final int SMALL_BUDGET_HEARTS_NUM = 1;
+
+    private static final String WINDOW_NAME = "bricker-save-check";
+
+    private int checksNum = 0;
+    private int failuresNum = 0;
+
+    /**
+     * Saves and restores the state of a game once, and tells whether the round trip changed it.
+     *
+     * @param gameManager the game
+     * @return the reason the round trip failed, or null if it left the game unchanged
+     */
+    private String checkRoundTrip(BrickerGameManager gameManager) {
+        checksNum++;
+        int checksum = gameManager.stateChecksum();
+        byte[] state = gameManager.saveState();
+        boolean isTruncationRejected = false;
+        try {
+            gameManager.restoreState(Arrays.copyOf(state, state.length - 1));
+        }
+        catch (IllegalArgumentException e) {
+            isTruncationRejected = true;
+        }
+        gameManager.restoreState(state);
+        if (!isTruncationRejected) {
+            return "a truncated state was restored";
+        }
+        if (gameManager.stateChecksum() != checksum) {
+            return "the checksum changed";
+        }
+        if (!Arrays.equals(gameManager.saveState(), state)) {
+            return "a second save differs from the first";
+        }
+        return null;
+    }
+
+    /**
+     * Creates a headless game of the check.
+     *
+     * @param seed      the seed of the game
+     * @param isEndless true for an endless game
+     * @param isDelayed true to hold back spawns above a small entity budget
+     * @return the simulation of the game
+     */
+    private static HeadlessSimulation createGame(long seed, boolean isEndless, boolean isDelayed) {
+        BrickerGameManager gameManager = new BrickerGameManager(WINDOW_NAME,
+                new Vector2(BrickerGameManager.WINDOW_WIDTH, BrickerGameManager.WINDOW_HEIGHT));
+        gameManager.setSeed(seed);
+        gameManager.setEndless(isEndless);
+        gameManager.setBotSkill(BotSkill.GOOD);
+        if (isDelayed) {
+            gameManager.setEntityBudget(new EntityBudget(SMALL_BUDGET_PUCKS_NUM, SMALL_BUDGET_HEARTS_NUM,
+                    EntityBudget.Policy.DELAY));
+        }
+        return new HeadlessSimulation(gameManager, HeadlessSimulation.DEFAULT_FIXED_DELTA);
+    }
+
+    /**
+     * Plays a game alongside its twin, checking a save/restore round trip at a fixed interval of frames,
+     * and that the game still agrees with its twin after every frame. The game stops at the first failure.
+     *
+     * @param seed                the seed of the game
+     * @param checkIntervalFrames the number of frames between two checks
+     * @param isEndless           true for an endless game
+     * @param isDelayed           true to hold back spawns above a small entity budget
+     */
+    public void checkGame(long seed, int checkIntervalFrames, boolean isEndless, boolean isDelayed) {
+        HeadlessSimulation simulation = createGame(seed, isEndless, isDelayed);
+        HeadlessSimulation twin = createGame(seed, isEndless, isDelayed);
+        BrickerGameManager gameManager = simulation.getGameManager();
+        boolean isInProgress = true;
+        String failure = null;
+        while (failure == null && isInProgress && simulation.getFramesNum() < MAX_FRAMES_PER_GAME) {
+            isInProgress = simulation.step();
+            twin.step();
+            int frame = simulation.getFramesNum();
+            if (gameManager.stateChecksum() != twin.getGameManager().stateChecksum()) {
+                failure = "the game diverged from its twin";
+            }
+            else if (isInProgress && frame % checkIntervalFrames == 0) {
+                if (!Arrays.equals(gameManager.saveState(), twin.getGameManager().saveState())) {
+                    failure = "the game state differs from its twin's";
+                }
+                else {
+                    failure = checkRoundTrip(gameManager);
+                }
+            }
+        }
+        if (failure != null) {
+            failuresNum++;
+            System.out.printf("seed %d, frame %d: %s%n", seed, simulation.getFramesNum(), failure);
+        }
+    }
+
+    /**
+     * Runs the check on a number of seeded games, half of them endless and half of them holding back
+     * spawns, and exits with an error status if any round trip failed.
+     *
+     * @param args optional: [games] [frames between checks]
+     */
+    public static void main(String[] args) {
+        int gamesNum = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        int checkIntervalFrames = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+        System.setProperty(FrameProfiler.DUMP_FILE_PROPERTY, "");
+        SaveStateCheck check = new SaveStateCheck();
+        for (long seed = 0; seed < gamesNum; seed++) {
+            check.checkGame(seed, checkIntervalFrames, seed % 2 == 1, seed / 2 % 2 == 1);
+        }
+        System.out.printf("round trips: %d, failures: %d%n", check.checksNum, check.failuresNum);
+        if (check.failuresNum > 0) {
+            System.exit(1);
+        }
+    }
+}